@@ -14,8 +14,9 @@ function QrList({ qrCodes }) {
                     <div key={qr.id} style={{ margin: '10px', textAlign: 'center' }}>
                         <p>{qr.content}</p>
                         <img
-                            src={`data:image/png;base64,${qr.qrCodeBase64}`}
+                            src={qr.imageUrl}
                             alt={qr.content}
+                            loading="lazy"
                             style={{ width: '150px', height: '150px' }}
                         />
                     </div>
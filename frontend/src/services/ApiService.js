@@ -8,16 +8,30 @@ const ApiService = axios.create({
     baseURL: API_URL,
 });
 
+// Списки отдаются страницами по keyset-курсору: следующая страница — ?after=<X-Next-Cursor>.
+// Собираем все страницы, чтобы компоненты по-прежнему получали полный массив в response.data
+const getAllPages = async (url, params = {}) => {
+    const items = [];
+    let after;
+    let response;
+    do {
+        response = await ApiService.get(url, { params: { ...params, after } });
+        items.push(...response.data);
+        after = response.headers['x-next-cursor'];
+    } while (after);
+    return { ...response, data: items };
+};
+
 export default {
 
-    getUsers: () => ApiService.get('/users'),
+    getUsers: () => getAllPages('/users'),
     createUser: (user) => ApiService.post('/users', user),
     updateUser: (id, user) => ApiService.put(`/users/${id}`, user),
     deleteUser: (id) => ApiService.delete(`/users/${id}`),
 
 
     getQrCodesByUser: (username) =>
-        ApiService.get('/qr/by-user', { params: { username } }),
+        getAllPages('/qr/by-user', { username }),
     generateQr: (text, username) =>
         ApiService.get('/qr', { params: { text, username } })
 };
@@ -0,0 +1,95 @@
+package com.example.ANONIMUS.cache;
+
+import com.example.ANONIMUS.dto.QrSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Кэш под конкуренцией: смешанные чтения/записи снимков, аренда off-heap картинок и single-flight загрузка
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheServiceBenchmark {
+
+    @Param({"1000", "50000"})
+    int keyCount;
+
+    private CacheService cacheService;
+    private String[] snapshotKeys;
+    private String[] imageKeys;
+    private QrSnapshot[] snapshots;
+    private final byte[] image = new byte[700];
+
+    @Setup
+    public void setUp() {
+        cacheService = new CacheService(new CacheProperties());
+        snapshotKeys = new String[keyCount];
+        imageKeys = new String[keyCount];
+        snapshots = new QrSnapshot[keyCount];
+        Instant now = Instant.now();
+        for (int i = 0; i < keyCount; i++) {
+            snapshotKeys[i] = "qr_" + i;
+            imageKeys[i] = "qr_image_" + i;
+            snapshots[i] = new QrSnapshot((long) i, "text-" + i, Integer.toHexString(i), now);
+            cacheService.put(snapshotKeys[i], snapshots[i]);
+            cacheService.put(imageKeys[i], image);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public QrSnapshot get(Cursor cursor) {
+        return cacheService.get(snapshotKeys[cursor.next(keyCount)], QrSnapshot.class);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void put(Cursor cursor) {
+        int i = cursor.next(keyCount);
+        cacheService.put(snapshotKeys[i], snapshots[i]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int leaseImage(Cursor cursor) {
+        try (BytesLease lease = cacheService.lease(imageKeys[cursor.next(keyCount)])) {
+            return lease == null ? 0 : lease.length();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public QrSnapshot getOrLoad(Cursor cursor) {
+        int i = cursor.next(keyCount);
+        return cacheService.getOrLoad(snapshotKeys[i], QrSnapshot.class, () -> snapshots[i]);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ANONIMUS.dao;
+
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.google.zxing.common.BitMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Рендер по шагам: полный PNG по умолчанию, кодирование матрицы, растеризация и Base64 для JSON-ответа
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrDaoBenchmark {
+
+    @Param({"16", "128", "1024"})
+    int textLength;
+
+    private final QrDao qrDao = new QrDao();
+    private final QrRenderOptions options = QrRenderOptions.defaults();
+    private String text;
+    private BitMatrix modules;
+    private byte[] png;
+    private BitMatrix raster;
+
+    // Отдельное состояние, чтобы уровни сжатия не умножали число прогонов остальных бенчмарков
+    @State(Scope.Benchmark)
+    public static class Compression {
+        @Param({"" + Deflater.BEST_SPEED, "" + Deflater.DEFAULT_COMPRESSION, "" + Deflater.BEST_COMPRESSION})
+        int level;
+    }
+
+    @Setup
+    public void setUp() {
+        // Фиксированное зерно: одинаковые входные данные в каждом прогоне
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(textLength);
+        for (int i = 0; i < textLength; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        text = builder.toString();
+        modules = qrDao.encodeModules(text, options.getErrorCorrection());
+        png = qrDao.generateQrCode(text);
+        raster = QrDao.scale(modules, options.getSize(), options.getMargin());
+    }
+
+    @Benchmark
+    public byte[] generateQrCode() {
+        return qrDao.generateQrCode(text);
+    }
+
+    @Benchmark
+    public BitMatrix encodeModules() {
+        return qrDao.encodeModules(text, options.getErrorCorrection());
+    }
+
+    @Benchmark
+    public byte[] rasterizePng() {
+        return qrDao.rasterize(modules, QrImageFormat.PNG, options);
+    }
+
+    @Benchmark
+    public byte[] encodePng(Compression compression) {
+        return QrPngEncoder.encode(raster, compression.level);
+    }
+
+    @Benchmark
+    public byte[] rasterizeSvg() {
+        return qrDao.rasterize(modules, QrImageFormat.SVG, options);
+    }
+
+    @Benchmark
+    public String base64() {
+        return Base64.getEncoder().encodeToString(png);
+    }
+}
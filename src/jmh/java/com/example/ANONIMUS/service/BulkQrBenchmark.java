@@ -0,0 +1,85 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.AnonimusApplication;
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Весь путь generateBulkQrCodes: дедупликация, рендер в пуле, батчевые вставки.
+// Вместо PostgreSQL — H2 в памяти в режиме совместимости, поэтому абсолютные цифры БД занижены,
+// но сравнение между коммитами честное. new — все тексты новые, existing — все уже сохранены
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class BulkQrBenchmark {
+
+    @Param({"10", "100"})
+    int batchSize;
+
+    @Param({"new", "existing"})
+    String texts;
+
+    private ConfigurableApplicationContext context;
+    private QrService qrService;
+    private List<QrGenerationRequest> existing;
+    private long sequence;
+
+    @Setup
+    public void start() {
+        // Аргументы командной строки перекрывают application.properties, в отличие от properties()
+        context = new SpringApplicationBuilder(AnonimusApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.ANONIMUS=WARN",
+                        "--app.logging.requests.enabled=false");
+        qrService = context.getBean(QrService.class);
+        existing = batch("existing-");
+        qrService.generateBulkQrCodes(existing);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BulkQrResult> generateBulk() {
+        List<QrGenerationRequest> requests = "new".equals(texts) ? batch("text-" + (++sequence) + "-") : existing;
+        return qrService.generateBulkQrCodes(requests);
+    }
+
+    private List<QrGenerationRequest> batch(String prefix) {
+        List<QrGenerationRequest> requests = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            requests.add(new QrGenerationRequest(prefix + i, "bench-user-" + (i % 10)));
+        }
+        return requests;
+    }
+}
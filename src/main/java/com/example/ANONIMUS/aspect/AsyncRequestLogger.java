@@ -0,0 +1,122 @@
+package com.example.ANONIMUS.aspect;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Журнал запросов: поток запроса только кладёт короткую запись в кольцевой буфер,
+// форматирование и вывод делает отдельный поток. Тело ответа не логируется, только его размер
+@Component
+public class AsyncRequestLogger {
+    private static final Logger log = LoggerFactory.getLogger("com.example.ANONIMUS.requests");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final RequestLogProperties properties;
+    private final RequestLogRing<Entry> ring;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AsyncRequestLogger(RequestLogProperties properties) {
+        this.properties = properties;
+        this.ring = new RequestLogRing<>(properties.getBufferSize());
+        this.writer = new CustomizableThreadFactory("request-log-").newThread(this::drainLoop);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void log(String endpoint, int status, long elapsedNanos, long payloadSize, boolean payloadItems) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        boolean error = status >= 400;
+        Level level = levelOf(properties.getLevels().getOrDefault(endpoint, properties.getDefaultLevel()), status);
+        if (level == null || !log.isEnabledForLevel(level)) {
+            return;
+        }
+        if (!(error && properties.isAlwaysLogErrors())
+                && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+        Entry entry = new Entry(endpoint, status, TimeUnit.NANOSECONDS.toMicros(elapsedNanos), payloadSize, payloadItems, level);
+        // Писатель просыпается сам раз в несколько миллисекунд, поток запроса его не будит
+        if (!ring.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drainLoop() {
+        long reportedDrops = 0;
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                log.warn("Request log buffer ({} entries) overflowed, dropped {} entries",
+                        ring.capacity(), drops - reportedDrops);
+                reportedDrops = drops;
+            }
+        }
+        drain();
+    }
+
+    private boolean drain() {
+        boolean any = false;
+        Entry entry;
+        while ((entry = ring.poll()) != null) {
+            any = true;
+            log.atLevel(entry.level())
+                    .log("{} status={} duration={}ms payload={}", entry.endpoint(), entry.status(),
+                            entry.micros() / 1000.0, entry.payload());
+        }
+        return any;
+    }
+
+    // 5xx поднимаются до WARN, чтобы ошибки не терялись при уровне DEBUG у эндпоинта
+    private static Level levelOf(LogLevel configured, int status) {
+        if (configured == null || configured == LogLevel.OFF) {
+            return null;
+        }
+        Level level = switch (configured) {
+            case TRACE -> Level.TRACE;
+            case DEBUG -> Level.DEBUG;
+            case INFO -> Level.INFO;
+            case WARN -> Level.WARN;
+            default -> Level.ERROR;
+        };
+        if (status >= 500 && level.toInt() < Level.WARN.toInt()) {
+            return Level.WARN;
+        }
+        return level;
+    }
+
+    private record Entry(String endpoint, int status, long micros, long payloadSize, boolean payloadItems, Level level) {
+        String payload() {
+            if (payloadSize < 0) {
+                return "-";
+            }
+            return payloadItems ? payloadSize + " items" : payloadSize + " B";
+        }
+    }
+}
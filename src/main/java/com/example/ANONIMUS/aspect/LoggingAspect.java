@@ -1,47 +1,137 @@
 package com.example.ANONIMUS.aspect;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-
+import com.example.ANONIMUS.exception.GlobalExceptionHandler;
 import com.example.ANONIMUS.service.RequestCounterService;
-import org.aspectj.lang.JoinPoint;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 
 @Aspect
 @Component
 public class LoggingAspect {
-    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    // Нестандартный статус nginx: клиент ушёл, не дождавшись конца ответа
+    static final int CLIENT_CLOSED_REQUEST = 499;
 
-    public LoggingAspect(RequestCounterService requestCounterService) {
+    private final RequestCounterService requestCounterService;
+    private final AsyncRequestLogger requestLogger;
+
+    public LoggingAspect(RequestCounterService requestCounterService, AsyncRequestLogger requestLogger) {
         this.requestCounterService = requestCounterService;
+        this.requestLogger = requestLogger;
     }
 
     @Pointcut("within(@org.springframework.web.bind.annotation.RestController *)")
     public void controllerPointcut() {}
 
-    private final RequestCounterService requestCounterService;
+    @Around("controllerPointcut()")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String endpoint = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (RuntimeException e) {
+            record(endpoint, statusOfError(e), start, null);
+            throw e;
+        } catch (Throwable e) {
+            record(endpoint, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start, null);
+            throw e;
+        }
+        // Реактивный ответ к этому моменту только собран: замер снимается, когда он завершится
+        if (result instanceof Mono<?> mono) {
+            return mono.doOnSuccess(value -> record(endpoint, statusOf(value), start, value))
+                    .doOnError(e -> record(endpoint, statusOfError(e), start, null))
+                    .doOnCancel(() -> record(endpoint, CLIENT_CLOSED_REQUEST, start, null));
+        }
+        if (result instanceof Flux<?> flux) {
+            LongAdder items = new LongAdder();
+            return flux.doOnNext(item -> items.increment())
+                    .doOnComplete(() -> recordStream(endpoint, HttpServletResponse.SC_OK, start, items.sum()))
+                    .doOnError(e -> record(endpoint, statusOfError(e), start, null))
+                    // Отключение клиента или таймаут async-запроса: поток отменяется без complete и error
+                    .doOnCancel(() -> recordStream(endpoint, CLIENT_CLOSED_REQUEST, start, items.sum()));
+        }
+        record(endpoint, statusOf(result), start, result);
+        return result;
+    }
 
-    @Before("controllerPointcut()")
-    public void logBefore(JoinPoint joinPoint) {
-        logger.info("Entering: {}.{}()",
-                joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName());
-        requestCounterService.increment(); // Увеличиваем счетчик
+    private void record(String endpoint, int status, long start, Object result) {
+        long elapsed = record(endpoint, status, start);
+        // Сам результат не форматируется: в лог уходит только его размер
+        Object body = result instanceof ResponseEntity<?> entity ? entity.getBody() : result;
+        requestLogger.log(endpoint, status, elapsed, payloadSize(body), body instanceof Collection<?>);
     }
 
-    @AfterReturning(pointcut = "controllerPointcut()", returning = "result")
-    public void logAfterReturning(JoinPoint joinPoint, Object result) {
-        logger.info("Exit: {}.{}() with result = {}",
-                joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(),
-                result);
+    // Для потока размер — число отданных элементов
+    private void recordStream(String endpoint, int status, long start, long items) {
+        long elapsed = record(endpoint, status, start);
+        requestLogger.log(endpoint, status, elapsed, items, true);
     }
 
-}
\ No newline at end of file
+    private long record(String endpoint, int status, long start) {
+        long elapsed = System.nanoTime() - start;
+        requestCounterService.record(endpoint, status, elapsed);
+        return elapsed;
+    }
+
+    // Необработанное исключение GlobalExceptionHandler превратит в 500, IllegalArgumentException — в 400,
+    // NoSuchElementException — в 404, конфликт уникального индекса — в 409,
+    // нехватку соединений с БД или переполненную очередь пула — в 503
+    private static int statusOfError(Throwable e) {
+        if (e instanceof IllegalArgumentException) {
+            return HttpServletResponse.SC_BAD_REQUEST;
+        }
+        if (e instanceof NoSuchElementException) {
+            return HttpServletResponse.SC_NOT_FOUND;
+        }
+        if (e instanceof DataIntegrityViolationException) {
+            return HttpServletResponse.SC_CONFLICT;
+        }
+        if (e instanceof RejectedExecutionException || GlobalExceptionHandler.isDatabaseOverloaded(e)) {
+            return HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        }
+        return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    private static int statusOf(Object result) {
+        if (result instanceof ResponseEntity<?> entity) {
+            return entity.getStatusCode().value();
+        }
+        // void-методы пишут статус прямо в HttpServletResponse
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            return attributes.getResponse().getStatus();
+        }
+        return HttpServletResponse.SC_OK;
+    }
+
+    // Байты для byte[] и строк, число элементов для коллекций, -1 если размер дёшево не узнать
+    private static long payloadSize(Object body) {
+        if (body instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (body instanceof CharSequence text) {
+            return text.length();
+        }
+        if (body instanceof Collection<?> items) {
+            return items.size();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.ANONIMUS.aspect;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "app.logging.requests")
+public class RequestLogProperties {
+    private boolean enabled = true;
+
+    // Доля успешных запросов, попадающих в лог; ответы 4xx/5xx пишутся всегда, если alwaysLogErrors
+    private double sampleRate = 1.0;
+
+    private boolean alwaysLogErrors = true;
+
+    // Ёмкость кольцевого буфера, округляется вверх до степени двойки. При переполнении записи отбрасываются
+    private int bufferSize = 8192;
+
+    private LogLevel defaultLevel = LogLevel.INFO;
+
+    // Уровень по методу контроллера, например levels[QrController.getQrImage]=DEBUG; OFF отключает запись
+    private Map<String, LogLevel> levels = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isAlwaysLogErrors() {
+        return alwaysLogErrors;
+    }
+
+    public void setAlwaysLogErrors(boolean alwaysLogErrors) {
+        this.alwaysLogErrors = alwaysLogErrors;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public LogLevel getDefaultLevel() {
+        return defaultLevel;
+    }
+
+    public void setDefaultLevel(LogLevel defaultLevel) {
+        this.defaultLevel = defaultLevel;
+    }
+
+    public Map<String, LogLevel> getLevels() {
+        return levels;
+    }
+
+    public void setLevels(Map<String, LogLevel> levels) {
+        this.levels = levels;
+    }
+}
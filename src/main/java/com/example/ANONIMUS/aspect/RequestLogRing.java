@@ -0,0 +1,48 @@
+package com.example.ANONIMUS.aspect;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Ограниченный кольцевой буфер: много писателей, один читатель. Писатель не ждёт —
+// если места нет, offer возвращает false
+final class RequestLogRing<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Меняет только поток-читатель
+    private volatile long head;
+
+    RequestLogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(T item) {
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+        slots.lazySet((int) (slot & mask), item);
+        return true;
+    }
+
+    // null — буфер пуст или следующая занятая ячейка ещё не дописана
+    T poll() {
+        int index = (int) (head & mask);
+        T item = slots.get(index);
+        if (item == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = head + 1;
+        return item;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
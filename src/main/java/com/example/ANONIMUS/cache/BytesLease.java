@@ -0,0 +1,40 @@
+package com.example.ANONIMUS.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Закреплённые байты из кэша: пока аренда не закрыта, память не может быть переиспользована
+public interface BytesLease extends AutoCloseable {
+
+    int length();
+
+    void writeTo(OutputStream out) throws IOException;
+
+    byte[] toByteArray();
+
+    @Override
+    void close();
+
+    static BytesLease of(byte[] data) {
+        return new BytesLease() {
+            @Override
+            public int length() {
+                return data.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(data);
+            }
+
+            @Override
+            public byte[] toByteArray() {
+                return data;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
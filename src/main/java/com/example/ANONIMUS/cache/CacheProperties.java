@@ -0,0 +1,68 @@
+package com.example.ANONIMUS.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+    // Суммарный "вес" кэша: приблизительный размер значений в байтах
+    private DataSize maximumWeight = DataSize.ofMegabytes(64);
+
+    private Duration defaultTtl = Duration.ofMinutes(10);
+
+    // TTL по префиксу ключа, побеждает самый длинный совпавший префикс
+    private Map<String, Duration> ttl = new LinkedHashMap<>();
+
+    // Байты картинок с этими префиксами живут вне кучи со своим лимитом и LRU, TTL к ним не применяется.
+    // 0 отключает off-heap хранилище
+    private DataSize offHeapCapacity = DataSize.ofMegabytes(64);
+
+    private List<String> offHeapPrefixes = List.of("qr_image_", "qr_render_");
+
+    public DataSize getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public void setMaximumWeight(DataSize maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    public void setDefaultTtl(Duration defaultTtl) {
+        this.defaultTtl = defaultTtl;
+    }
+
+    public Map<String, Duration> getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Map<String, Duration> ttl) {
+        this.ttl = ttl;
+    }
+
+    public DataSize getOffHeapCapacity() {
+        return offHeapCapacity;
+    }
+
+    public void setOffHeapCapacity(DataSize offHeapCapacity) {
+        this.offHeapCapacity = offHeapCapacity;
+    }
+
+    public List<String> getOffHeapPrefixes() {
+        return offHeapPrefixes;
+    }
+
+    public void setOffHeapPrefixes(List<String> offHeapPrefixes) {
+        this.offHeapPrefixes = offHeapPrefixes;
+    }
+}
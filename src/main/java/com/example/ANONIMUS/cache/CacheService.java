@@ -1,32 +1,238 @@
 package com.example.ANONIMUS.cache;
 
+import com.example.ANONIMUS.dto.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Component
-public class CacheService {
-    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+public class CacheService implements MeterBinder {
+    private final Cache<String, Object> cache;
+    private final long maximumWeight;
+    // Загрузки, которые идут прямо сейчас: остальные промахи по тому же ключу ждут их результата
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Байты картинок держим вне кучи, чтобы они не раздували old gen
+    private final OffHeapImageStore offHeap;
+    private final List<String> offHeapPrefixes;
+
+    public CacheService(CacheProperties properties) {
+        this.maximumWeight = properties.getMaximumWeight().toBytes();
+        // Caffeine: W-TinyLFU допуск/вытеснение по весу, TTL зависит от префикса ключа
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(new CacheWeigher())
+                .expireAfter(new PrefixExpiry(properties.getTtl(), properties.getDefaultTtl()))
+                .recordStats()
+                .build();
+        this.offHeap = new OffHeapImageStore(properties.getOffHeapCapacity().toBytes());
+        this.offHeapPrefixes = List.copyOf(properties.getOffHeapPrefixes());
+    }
 
     public void put(String key, Object value) {
+        if (value instanceof byte[] bytes && isOffHeap(key) && offHeap.put(key, bytes)) {
+            // Не влезшие вне кучи значения (слишком большие или всё закреплено) остаются в Caffeine
+            cache.invalidate(key);
+            return;
+        }
         cache.put(key, value);
     }
 
+    // Внутри транзакции значение попадает в кэш только после коммита: при откате в кэше не останется
+    // того, чего нет в БД. evict перед put отменяет загрузку, успевшую прочитать старую строку
+    public void putAfterCommit(String key, Object value) {
+        afterCommit(() -> {
+            evict(key);
+            put(key, value);
+        });
+    }
+
+    // Сразу — чтобы до коммита не отдавать старое значение, и повторно после коммита — чтобы
+    // выкинуть то, что успел закэшировать читатель, видевший ещё незакоммиченную БД
+    public void evictAfterCommit(String key) {
+        evict(key);
+        afterCommit(() -> evict(key));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     public <T> T get(String key, Class<T> type) {
-        return type.cast(cache.get(key));
+        return type.cast(lookup(key));
+    }
+
+    // Закреплённые байты для записи в ответ без копии всей картинки в кучу; вызывающий обязан закрыть аренду
+    public BytesLease lease(String key) {
+        if (isOffHeap(key)) {
+            BytesLease lease = offHeap.lease(key);
+            if (lease != null) {
+                return lease;
+            }
+        }
+        return cache.getIfPresent(key) instanceof byte[] bytes ? BytesLease.of(bytes) : null;
+    }
+
+    // Single-flight: при промахе loader выполняется один раз на ключ, параллельные вызовы ждут его.
+    // null от loader не кэшируется. Если ключ вытеснили через evict во время загрузки,
+    // результат отдаётся ожидающим, но в кэш не кладётся — он мог быть прочитан до изменения в БД
+    public <T> T getOrLoad(String key, Class<T> type, Supplier<T> loader) {
+        Object cached = lookup(key);
+        if (type.isInstance(cached)) {
+            return type.cast(cached);
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return type.cast(await(running));
+        }
+        try {
+            // Предыдущая загрузка могла завершиться между getIfPresent и putIfAbsent
+            Object value = isOffHeap(key) ? offHeap.get(key) : cache.policy().getIfPresentQuietly(key);
+            if (!type.isInstance(value)) {
+                value = loader.get();
+                publish(key, flight, value);
+            }
+            flight.complete(value);
+            return type.cast(value);
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // Для обобщённых значений вроде CursorPage<T>, у которых нет своего Class<T>. Под ключом лежит только то,
+    // что вернул loader этого же ключа, поэтому непроверяемое приведение здесь единственное и безопасное
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, Supplier<T> loader) {
+        return (T) getOrLoad(key, Object.class, loader::get);
+    }
+
+    private void publish(String key, CompletableFuture<Object> flight, Object value) {
+        if (value == null) {
+            return;
+        }
+        // Проверка и запись под блокировкой ячейки inFlight, evict не может вклиниться между ними
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current == flight) {
+                put(k, value);
+            }
+            return current;
+        });
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
     }
 
     public void evict(String key) {
-        cache.remove(key);
+        inFlight.remove(key);
+        cache.invalidate(key);
+        if (isOffHeap(key)) {
+            offHeap.remove(key);
+        }
     }
 
     public boolean containsKey(String key) {
-        return cache.containsKey(key);
+        return cache.asMap().containsKey(key) || (isOffHeap(key) && offHeap.contains(key));
+    }
+
+    private Object lookup(String key) {
+        if (isOffHeap(key)) {
+            byte[] bytes = offHeap.get(key);
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+        return cache.getIfPresent(key);
+    }
+
+    private boolean isOffHeap(String key) {
+        for (String prefix : offHeapPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
     }
     @SuppressWarnings("unchecked")
     public <T> List<T> getList(String key, Class<T> type) {
-        return (List<T>) cache.get(key);
+        return (List<T>) cache.getIfPresent(key);
+    }
+
+    // Caffeine: cache.size, cache.gets{result=hit|miss}, cache.evictions; hit ratio считается в запросе к Prometheus.
+    // Off-heap хранилище публикуется под своими именами, у него отдельные ёмкость и вытеснение
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "app");
+        Gauge.builder("cache.weight", this, CacheService::weightedSize)
+                .tag("cache", "app").baseUnit("bytes").register(registry);
+        Gauge.builder("cache.offheap.entries", offHeap, store -> store.stats().getEntries())
+                .tag("cache", "app").register(registry);
+        Gauge.builder("cache.offheap.used", offHeap, store -> store.stats().getUsedBytes())
+                .tag("cache", "app").baseUnit("bytes").register(registry);
+        Gauge.builder("cache.offheap.capacity", offHeap, store -> store.stats().getCapacityBytes())
+                .tag("cache", "app").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("cache.offheap.gets", offHeap, store -> store.stats().getHitCount())
+                .tags("cache", "app", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.offheap.gets", offHeap, store -> store.stats().getMissCount())
+                .tags("cache", "app", "result", "miss").register(registry);
+        FunctionCounter.builder("cache.offheap.evictions", offHeap, store -> store.stats().getEvictionCount())
+                .tag("cache", "app").register(registry);
+    }
+
+    public CacheStatsResponse getStats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(
+                cache.estimatedSize(),
+                weightedSize(),
+                maximumWeight,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                offHeap.stats());
+    }
+
+    private long weightedSize() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.example.ANONIMUS.cache;
+
+import com.example.ANONIMUS.dto.CursorPage;
+import com.example.ANONIMUS.dto.QrSnapshot;
+import com.example.ANONIMUS.dto.UserSnapshot;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Collection;
+
+class CacheWeigher implements Weigher<String, Object> {
+    // Грубая оценка заголовков объектов и ссылок, точность до байта здесь не нужна
+    private static final int OBJECT_OVERHEAD = 48;
+
+    @Override
+    public int weigh(String key, Object value) {
+        long weight = OBJECT_OVERHEAD + key.length() + weighValue(value);
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private long weighValue(Object value) {
+        if (value instanceof String s) {
+            return s.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (value instanceof BitMatrix matrix) {
+            return OBJECT_OVERHEAD + (long) matrix.getRowSize() * matrix.getHeight() * Integer.BYTES;
+        }
+        if (value instanceof QrSnapshot qr) {
+            return OBJECT_OVERHEAD + length(qr.content()) + length(qr.contentHash());
+        }
+        if (value instanceof UserSnapshot user) {
+            return OBJECT_OVERHEAD + length(user.username());
+        }
+        if (value instanceof CursorPage<?> page) {
+            return OBJECT_OVERHEAD + weighValue(page.items());
+        }
+        if (value instanceof Collection<?> collection) {
+            long total = OBJECT_OVERHEAD;
+            for (Object item : collection) {
+                total += OBJECT_OVERHEAD + weighValue(item);
+            }
+            return total;
+        }
+        return OBJECT_OVERHEAD;
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.ANONIMUS.cache;
+
+import com.example.ANONIMUS.dto.OffHeapStatsResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Хранилище байтов картинок вне кучи: слабы по 1 МБ в direct ByteBuffer, нарезанные на куски
+// одного размера (классы 256 Б .. 256 КБ, степени двойки). В куче остаются только ключи и метаданные.
+// Вытеснение — LRU внутри класса размера; закреплённые (арендованные) куски не вытесняются.
+// Слабы не привязаны к классу навсегда: если давно не читанный слаб старше жертвы внутри класса
+// (или вовсе пуст), он освобождается целиком и нарезается заново под класс, которому не хватило места
+final class OffHeapImageStore {
+    static final int SLAB_SIZE = 1 << 20;
+    static final int MIN_CHUNK = 256;
+    static final int MAX_CHUNK = 256 * 1024;
+    private static final int CLASS_COUNT = Integer.numberOfTrailingZeros(MAX_CHUNK / MIN_CHUNK) + 1;
+    // Сервлетный поток принимает только byte[], поэтому запись идёт через небольшой буфер потока
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private final int maxSlabs;
+    private final List<Slab> slabs = new ArrayList<>();
+    private final SizeClass[] classes = new SizeClass[CLASS_COUNT];
+    private final Map<String, Entry> index = new HashMap<>();
+    // Все операции с метаданными короткие, копирование байтов идёт вне блокировки
+    private final ReentrantLock lock = new ReentrantLock();
+    private long usedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    // Логические часы доступа для сравнения давности между слабами разных классов
+    private long clock;
+
+    OffHeapImageStore(long capacityBytes) {
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, capacityBytes / SLAB_SIZE);
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            classes[i] = new SizeClass(MIN_CHUNK << i);
+        }
+    }
+
+    boolean put(String key, byte[] data) {
+        if (maxSlabs == 0 || data.length == 0 || data.length > MAX_CHUNK) {
+            // Старая копия не должна пережить значение, ушедшее в кучу
+            remove(key);
+            return false;
+        }
+        SizeClass sizeClass = classes[classIndex(data.length)];
+        Chunk chunk;
+        lock.lock();
+        try {
+            chunk = allocate(sizeClass);
+        } finally {
+            lock.unlock();
+        }
+        if (chunk == null) {
+            remove(key);
+            return false;
+        }
+        // Кусок ещё не опубликован в индексе, никто кроме нас его не видит, а закрепление слаба
+        // не даёт переразметить его под другой класс, пока идёт копирование
+        chunk.buffer().put(0, data);
+        Entry entry = new Entry(key, sizeClass, chunk, data.length);
+        lock.lock();
+        try {
+            chunk.slab().pins--;
+            Entry previous = index.put(key, entry);
+            if (previous != null) {
+                unlink(previous);
+            }
+            sizeClass.lru.put(key, entry);
+            chunk.slab().entries.add(entry);
+            touch(entry);
+            usedBytes += entry.length;
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    BytesLease lease(String key) {
+        lock.lock();
+        try {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            // get в LinkedHashMap с accessOrder переносит запись в конец LRU
+            entry.sizeClass.lru.get(key);
+            touch(entry);
+            entry.pins++;
+            entry.chunk.slab().pins++;
+            return new PinnedLease(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    byte[] get(String key) {
+        try (BytesLease lease = lease(key)) {
+            return lease == null ? null : lease.toByteArray();
+        }
+    }
+
+    boolean contains(String key) {
+        lock.lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(String key) {
+        lock.lock();
+        try {
+            Entry entry = index.remove(key);
+            if (entry != null) {
+                unlink(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    OffHeapStatsResponse stats() {
+        lock.lock();
+        try {
+            return new OffHeapStatsResponse(index.size(), usedBytes, (long) slabs.size() * SLAB_SIZE,
+                    (long) maxSlabs * SLAB_SIZE, hitCount, missCount, evictionCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static int classIndex(int length) {
+        int chunk = Math.max(MIN_CHUNK, Integer.highestOneBit(length - 1) << 1);
+        return Integer.numberOfTrailingZeros(chunk / MIN_CHUNK);
+    }
+
+    // Вызывается под lock. Возвращённый кусок закреплён вместе со слабом до публикации записи
+    private Chunk allocate(SizeClass sizeClass) {
+        Chunk chunk = takeChunk(sizeClass);
+        if (chunk != null) {
+            chunk.slab().pins++;
+        }
+        return chunk;
+    }
+
+    private Chunk takeChunk(SizeClass sizeClass) {
+        Chunk chunk = sizeClass.free.poll();
+        if (chunk != null) {
+            return chunk;
+        }
+        if (slabs.size() < maxSlabs) {
+            Slab slab = new Slab(ByteBuffer.allocateDirect(SLAB_SIZE));
+            slabs.add(slab);
+            carve(slab, sizeClass);
+            return sizeClass.free.poll();
+        }
+        // Память кончилась: самый давно читанный незакреплённый кусок своего класса
+        // против самого давнего слаба другого класса — освобождаем то, что старше
+        Entry victim = oldestUnpinned(sizeClass);
+        Slab slab = oldestReclaimableSlab(sizeClass);
+        if (slab != null && (victim == null || slab.lastAccess() < victim.lastAccess)) {
+            reclaim(slab);
+            carve(slab, sizeClass);
+            return sizeClass.free.poll();
+        }
+        if (victim == null) {
+            return null;
+        }
+        sizeClass.lru.remove(victim.key);
+        index.remove(victim.key);
+        victim.chunk.slab().entries.remove(victim);
+        usedBytes -= victim.length;
+        victim.removed = true;
+        evictionCount++;
+        return victim.chunk;
+    }
+
+    private static Entry oldestUnpinned(SizeClass sizeClass) {
+        for (Entry entry : sizeClass.lru.values()) {
+            if (entry.pins == 0) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private Slab oldestReclaimableSlab(SizeClass sizeClass) {
+        Slab oldest = null;
+        for (Slab slab : slabs) {
+            if (slab.owner != sizeClass && slab.pins == 0
+                    && (oldest == null || slab.lastAccess() < oldest.lastAccess())) {
+                oldest = slab;
+            }
+        }
+        return oldest;
+    }
+
+    // Все записи слаба вытесняются, его свободные куски уходят из списка прежнего класса
+    private void reclaim(Slab slab) {
+        for (Entry entry : slab.entries) {
+            index.remove(entry.key);
+            entry.sizeClass.lru.remove(entry.key);
+            usedBytes -= entry.length;
+            entry.removed = true;
+            evictionCount++;
+        }
+        slab.entries.clear();
+        slab.owner.free.removeIf(chunk -> chunk.slab() == slab);
+    }
+
+    private static void carve(Slab slab, SizeClass sizeClass) {
+        slab.owner = sizeClass;
+        for (int offset = 0; offset + sizeClass.chunkSize <= SLAB_SIZE; offset += sizeClass.chunkSize) {
+            sizeClass.free.add(new Chunk(slab, slab.buffer.slice(offset, sizeClass.chunkSize)));
+        }
+    }
+
+    private void touch(Entry entry) {
+        entry.lastAccess = ++clock;
+        entry.chunk.slab().lastAccess = entry.lastAccess;
+    }
+
+    // Вызывается под lock: запись уже убрана из index
+    private void unlink(Entry entry) {
+        entry.sizeClass.lru.remove(entry.key, entry);
+        entry.chunk.slab().entries.remove(entry);
+        usedBytes -= entry.length;
+        entry.removed = true;
+        if (entry.pins == 0) {
+            entry.sizeClass.free.push(entry.chunk);
+        }
+    }
+
+    private void release(Entry entry) {
+        lock.lock();
+        try {
+            entry.pins--;
+            entry.chunk.slab().pins--;
+            // Запись удалили, пока её читали: кусок освобождается последним читателем
+            if (entry.removed && entry.pins == 0) {
+                entry.sizeClass.free.push(entry.chunk);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Slab {
+        private final ByteBuffer buffer;
+        private final Set<Entry> entries = new HashSet<>();
+        private SizeClass owner;
+        // Аренды и кусок, который сейчас заполняется в put: пока их больше нуля, слаб не переразмечается
+        private int pins;
+        private long lastAccess;
+
+        private Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        // Пустой слаб отдаётся раньше любого занятого
+        private long lastAccess() {
+            return entries.isEmpty() ? Long.MIN_VALUE : lastAccess;
+        }
+    }
+
+    private record Chunk(Slab slab, ByteBuffer buffer) {
+    }
+
+    private static final class SizeClass {
+        private final int chunkSize;
+        private final ArrayDeque<Chunk> free = new ArrayDeque<>();
+        private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(16, 0.75f, true);
+
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final SizeClass sizeClass;
+        private final Chunk chunk;
+        private final int length;
+        private int pins;
+        private boolean removed;
+        private long lastAccess;
+
+        private Entry(String key, SizeClass sizeClass, Chunk chunk, int length) {
+            this.key = key;
+            this.sizeClass = sizeClass;
+            this.chunk = chunk;
+            this.length = length;
+        }
+    }
+
+    private final class PinnedLease implements BytesLease {
+        private final Entry entry;
+        private boolean closed;
+
+        private PinnedLease(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public int length() {
+            return entry.length;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            byte[] buffer = TRANSFER_BUFFER.get();
+            for (int offset = 0; offset < entry.length; offset += buffer.length) {
+                int n = Math.min(buffer.length, entry.length - offset);
+                // Абсолютное чтение не трогает position, один кусок могут читать несколько потоков
+                entry.chunk.buffer().get(offset, buffer, 0, n);
+                out.write(buffer, 0, n);
+            }
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            byte[] data = new byte[entry.length];
+            entry.chunk.buffer().get(0, data);
+            return data;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ANONIMUS.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+class PrefixExpiry implements Expiry<String, Object> {
+    private final List<Map.Entry<String, Duration>> prefixTtls;
+    private final long defaultTtlNanos;
+
+    PrefixExpiry(Map<String, Duration> ttlByPrefix, Duration defaultTtl) {
+        // "qr_user_" и "qr_" пересекаются, поэтому сначала проверяем более длинные префиксы
+        this.prefixTtls = ttlByPrefix.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Duration> e) -> e.getKey().length()).reversed())
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .toList();
+        this.defaultTtlNanos = defaultTtl.toNanos();
+    }
+
+    long ttlNanos(String key) {
+        for (Map.Entry<String, Duration> entry : prefixTtls) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue().toNanos();
+            }
+        }
+        return defaultTtlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, Object value, long currentTime) {
+        return ttlNanos(key);
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+        return ttlNanos(key);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
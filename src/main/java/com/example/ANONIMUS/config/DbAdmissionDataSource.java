@@ -0,0 +1,90 @@
+package com.example.ANONIMUS.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Ограничивает число потоков, одновременно держащих или ждущих соединение: размер пула плюс maxWaiting.
+// Виртуальных потоков может быть тысячи, и без этого все они встали бы в очередь Hikari на connection-timeout.
+// Лишние получают отказ сразу, а не через 30 секунд ожидания.
+// Обёртка подменяет бин HikariDataSource, поэтому при остановке контекста закрывает пул вместо него
+final class DbAdmissionDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final Semaphore admissions;
+    private final int limit;
+
+    DbAdmissionDataSource(DataSource target, int limit) {
+        super(target);
+        this.limit = limit;
+        this.admissions = new Semaphore(limit);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admit();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            admissions.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admit();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            admissions.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    int available() {
+        return admissions.availablePermits();
+    }
+
+    private void admit() throws SQLTransientConnectionException {
+        if (!admissions.tryAcquire()) {
+            throw new SQLTransientConnectionException(
+                    "Database admission limit reached: " + limit + " connections in use or awaited");
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            admissions.release();
+                        }
+                        return null;
+                    }
+                    if ("close".equals(method.getName())) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
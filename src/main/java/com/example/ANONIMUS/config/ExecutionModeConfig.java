@@ -0,0 +1,51 @@
+package com.example.ANONIMUS.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadFactory;
+
+// spring.threads.virtual.enabled=true на JDK 21+ переводит Tomcat и applicationTaskExecutor на виртуальные потоки.
+// Здесь то же самое для воркеров фоновых заданий и ограничение нагрузки на пул соединений.
+// Рендер (qrRenderExecutor) остаётся на платформенных потоках: это CPU, виртуальные потоки его не ускорят
+@Configuration
+public class ExecutionModeConfig {
+
+    @Bean(name = "qrJobThreadFactory")
+    public ThreadFactory qrJobThreadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("qr-job-").getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory("qr-job-");
+    }
+
+    @Configuration
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    static class DbAdmissionConfig {
+
+        // Статический бин: пост-процессор должен создаваться раньше остальных бинов конфигурации
+        @Bean
+        static BeanPostProcessor dbAdmissionPostProcessor(Environment environment) {
+            int maxWaiting = environment.getProperty("app.db.max-waiting", Integer.class, 200);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof HikariDataSource hikari && maxWaiting >= 0) {
+                        // До старта пула Hikari хранит -1, а размер по умолчанию у него 10
+                        int poolSize = hikari.getMaximumPoolSize() > 0 ? hikari.getMaximumPoolSize() : 10;
+                        return new DbAdmissionDataSource(hikari, poolSize + maxWaiting);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
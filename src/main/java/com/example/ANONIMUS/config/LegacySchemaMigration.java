@@ -0,0 +1,85 @@
+package com.example.ANONIMUS.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// ddl-auto=update умеет только добавлять колонки, поэтому переносы данных между
+// старой и новой схемой делаем здесь, до того как приложение начнёт принимать запросы
+@Component
+@Slf4j
+public class LegacySchemaMigration {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // EntityManagerFactory в конструкторе гарантирует, что Hibernate уже обновил схему
+    public LegacySchemaMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        // Старые данные бывают только в PostgreSQL, встроенные БД создаются с нуля
+        if (!isPostgres()) {
+            return;
+        }
+        if (columnExists("qr_codes", "qr_code_base64")) {
+            transactionTemplate.executeWithoutResult(status -> migrateBase64Images());
+        }
+        transactionTemplate.executeWithoutResult(status -> backfillContentHashes());
+        syncQrIdSequence();
+    }
+
+    // Строки до появления content_hash остались без хэша. Заполняем по одной строке на содержимое и только
+    // если такой хэш ещё не занят: индекс по content_hash уникальный, а старые дубликаты текста бывают
+    private void backfillContentHashes() {
+        int updated = jdbcTemplate.update(
+                "UPDATE qr_codes q SET content_hash = encode(sha256(convert_to(q.content, 'UTF8')), 'hex') " +
+                        "WHERE q.content_hash IS NULL " +
+                        "AND q.id = (SELECT MIN(d.id) FROM qr_codes d " +
+                        "WHERE d.content = q.content AND d.content_hash IS NULL) " +
+                        "AND NOT EXISTS (SELECT 1 FROM qr_codes h " +
+                        "WHERE h.content_hash = encode(sha256(convert_to(q.content, 'UTF8')), 'hex'))");
+        if (updated > 0) {
+            log.info("Backfilled content_hash for {} legacy QR codes", updated);
+        }
+    }
+
+    // Раньше id выдавал IDENTITY, поэтому новая последовательность должна начинаться после MAX(id)
+    private void syncQrIdSequence() {
+        jdbcTemplate.queryForObject(
+                "SELECT setval('qr_codes_seq', GREATEST(" +
+                        "(SELECT COALESCE(MAX(id), 0) FROM qr_codes) + 50, " +
+                        "(SELECT last_value FROM qr_codes_seq)))",
+                Long.class);
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    private void migrateBase64Images() {
+        int migrated = jdbcTemplate.update(
+                "INSERT INTO qr_images (qr_id, data) " +
+                        "SELECT q.id, decode(q.qr_code_base64, 'base64') FROM qr_codes q " +
+                        "WHERE q.qr_code_base64 IS NOT NULL " +
+                        "AND NOT EXISTS (SELECT 1 FROM qr_images i WHERE i.qr_id = q.id)");
+        jdbcTemplate.execute("ALTER TABLE qr_codes DROP COLUMN qr_code_base64");
+        log.info("Moved {} base64 QR images to qr_images", migrated);
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = ? AND column_name = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ANONIMUS.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class QrExecutorConfig {
+
+    // Рендер QR — чистый CPU, поэтому пул ограничен числом ядер (0 = по числу процессоров)
+    @Bean(name = "qrRenderExecutor")
+    public ThreadPoolTaskExecutor qrRenderExecutor(
+            @Value("${app.qr.bulk.parallelism:0}") int parallelism,
+            @Value("${app.qr.bulk.queue-capacity:1000}") int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("qr-render-");
+        // Очередь заполнена — рендерит сам вызывающий поток, это и есть backpressure
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Для реактивных эндпоинтов рендер идёт в тот же ограниченный CPU-пул; жизненным циклом пула управляет Spring
+    @Bean(name = "qrRenderScheduler", destroyMethod = "")
+    public Scheduler qrRenderScheduler(@Qualifier("qrRenderExecutor") ThreadPoolTaskExecutor executor) {
+        return Schedulers.fromExecutor(executor);
+    }
+
+    // Изолированный пул для блокирующих вызовов JPA и чтения тела запроса: потоков столько же, сколько
+    // соединений в пуле (0 = по размеру пула Hikari), лишние задачи ждут в очереди ограниченной длины
+    @Bean(name = "qrBlockingScheduler", destroyMethod = "dispose")
+    public Scheduler qrBlockingScheduler(
+            @Value("${app.qr.reactive.blocking-threads:0}") int threads,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.qr.reactive.queue-capacity:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads > 0 ? threads : poolSize, queueCapacity, "qr-blocking");
+    }
+}
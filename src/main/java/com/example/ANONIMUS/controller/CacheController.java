@@ -0,0 +1,25 @@
+package com.example.ANONIMUS.controller;
+
+import com.example.ANONIMUS.cache.CacheService;
+import com.example.ANONIMUS.dto.CacheStatsResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    private final CacheService cacheService;
+
+    public CacheController(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get cache statistics", description = "Returns size, weight, hit/miss and eviction counters")
+    public ResponseEntity<CacheStatsResponse> getStats() {
+        return ResponseEntity.ok(cacheService.getStats());
+    }
+}
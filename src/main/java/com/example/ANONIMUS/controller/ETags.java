@@ -0,0 +1,29 @@
+package com.example.ANONIMUS.controller;
+
+import com.example.ANONIMUS.util.HashUtils;
+
+// Сильный ETag считается от того, что определяет тело ответа (id, хэш содержимого, курсор),
+// а не от сериализованного JSON: при совпадении Spring отвечает 304, не сериализуя тело
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            append(key, part);
+        }
+        return "\"" + HashUtils.sha256Hex(key.toString()).substring(0, 32) + "\"";
+    }
+
+    private static void append(StringBuilder key, Object part) {
+        if (part instanceof Iterable<?> items) {
+            for (Object item : items) {
+                append(key, item);
+            }
+            return;
+        }
+        key.append(part).append('\u0000');
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ANONIMUS.controller;
+
+import com.example.ANONIMUS.dto.RequestMetricsResponse;
+import com.example.ANONIMUS.service.RequestCounterService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    private final RequestCounterService requestCounterService;
+
+    public MetricsController(RequestCounterService requestCounterService) {
+        this.requestCounterService = requestCounterService;
+    }
+
+    @GetMapping("/requests")
+    @Operation(summary = "Get request metrics",
+            description = "Returns request counts per controller method and status with p50/p99/p999 latency for the current window")
+    public ResponseEntity<RequestMetricsResponse> getRequestMetrics() {
+        return ResponseEntity.ok(requestCounterService.getMetrics());
+    }
+
+    @PostMapping("/requests/reset")
+    @Operation(summary = "Close metrics window", description = "Starts a new window and returns the metrics of the closed one")
+    public ResponseEntity<RequestMetricsResponse> resetRequestMetrics() {
+        return ResponseEntity.ok(requestCounterService.resetWindow());
+    }
+}
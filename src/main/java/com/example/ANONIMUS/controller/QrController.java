@@ -1,51 +1,106 @@
 package com.example.ANONIMUS.controller;
 
+import com.example.ANONIMUS.cache.BytesLease;
 import com.example.ANONIMUS.dto.BulkQrRequest;
 import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.CursorPage;
 import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
 import com.example.ANONIMUS.dto.QrResponse;
+import com.example.ANONIMUS.dto.QrSummaryResponse;
 import com.example.ANONIMUS.model.QrEntity;
+import com.example.ANONIMUS.service.BulkQrStreamService;
 import com.example.ANONIMUS.service.QrService;
 import com.example.ANONIMUS.service.RequestCounterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/qr")
 public class QrController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    // Картинка по id меняется через PUT, поэтому кэш обязан каждый раз сверять ETag: без max-age
+    // клиент не увидит старую картинку, а неизменившаяся отдаётся дешёвым 304
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
     private final QrService qrService;
+    private final BulkQrStreamService bulkQrStreamService;
 
-    public QrController(QrService qrService) {
+    public QrController(QrService qrService, BulkQrStreamService bulkQrStreamService) {
         this.qrService = qrService;
+        this.bulkQrStreamService = bulkQrStreamService;
     }
 
     @GetMapping
-    @Operation(summary = "Generate QR code", description = "Creates QR code from text")
+    @Operation(summary = "Generate QR code", description = "Creates QR code from text with optional size, margin and error correction level")
     @ApiResponse(responseCode = "200", description = "QR generated successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input parameters")
     public ResponseEntity<QrResponse> generateQrCode(
             @RequestParam String text,
-            @RequestParam String username) {
+            @RequestParam String username,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer margin,
+            @RequestParam(required = false) String errorCorrection) {
 
         if (text == null || text.trim().isEmpty() || username == null || username.trim().isEmpty()) {
-            return ResponseEntity.badRequest().build();
+            return ResponseEntity.badRequest().varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        QrRenderOptions options = QrRenderOptions.of(size, margin, errorCorrection);
+        // На этом URL по Accept отдаётся и JSON, и SVG/матрица — общий кэш должен различать их
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(qrService.generateAndSaveQrCode(text, username, options));
+    }
+
+    @GetMapping(produces = {QrImageFormat.SVG_VALUE, QrImageFormat.MODULES_VALUE})
+    @Operation(summary = "Generate QR code as SVG or module matrix",
+            description = "Creates QR code from text and returns it in the format requested by the Accept header")
+    @ApiResponse(responseCode = "200", description = "QR generated successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid input parameters")
+    public ResponseEntity<byte[]> generateQrCodeImage(
+            @RequestParam String text,
+            @RequestParam String username,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer margin,
+            @RequestParam(required = false) String errorCorrection,
+            @RequestHeader(HttpHeaders.ACCEPT) String accept) {
+
+        if (text == null || text.trim().isEmpty() || username == null || username.trim().isEmpty()) {
+            return ResponseEntity.badRequest().varyBy(HttpHeaders.ACCEPT).build();
         }
 
-        return ResponseEntity.ok(qrService.generateAndSaveQrCode(text, username));
+        QrImageFormat format = QrImageFormat.fromAccept(accept, QrImageFormat.SVG);
+        QrRenderOptions options = QrRenderOptions.of(size, margin, errorCorrection);
+        QrEntity qrEntity = qrService.registerQrCode(text, username);
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_LOCATION, QrSummaryResponse.imageUrlFor(qrEntity.getId()))
+                .body(qrService.renderQr(qrEntity, format, options));
     }
 
     @PostMapping("/bulk")
     @Operation(summary = "Bulk generate QR codes", description = "Creates multiple QR codes from a list of text/username pairs")
-    @ApiResponse(responseCode = "200", description = "QR codes generated successfully")
-    @ApiResponse(responseCode = "400", description = "Invalid input payload")
+    @ApiResponse(responseCode = "200", description = "Per-item results, invalid items carry an error")
+    @ApiResponse(responseCode = "400", description = "Empty payload")
     public ResponseEntity<List<BulkQrResult>> generateBulkQrCodes(@RequestBody BulkQrRequest bulkRequest) {
         if (bulkRequest == null || bulkRequest.getRequests() == null || bulkRequest.getRequests().isEmpty()) {
             return ResponseEntity.badRequest().body(Collections.singletonList(
@@ -53,57 +108,99 @@ public class QrController {
             ));
         }
 
-        // Basic validation for each item
-        boolean hasInvalidItem = bulkRequest.getRequests().stream()
-                .anyMatch(req -> req.getText() == null || req.getText().trim().isEmpty() ||
-                        req.getUsername() == null || req.getUsername().trim().isEmpty());
-
-        if (hasInvalidItem) {
-            return ResponseEntity.badRequest().body(
-                    bulkRequest.getRequests().stream()
-                            .map(req -> {
-                                if (req.getText() == null || req.getText().trim().isEmpty() ||
-                                        req.getUsername() == null || req.getUsername().trim().isEmpty()) {
-                                    return BulkQrResult.failure(req.getText(), req.getUsername(), "Invalid text or username");
-                                }
-                                return null;
-                            })
-                            .filter(result -> result != null)
-                            .collect(Collectors.toList())
-            );
-
-        }
-
-
+        // Невалидные элементы не валят весь запрос: сервис вернёт по ним ошибку, как в потоковых вариантах
         List<BulkQrResult> results = qrService.generateBulkQrCodes(bulkRequest.getRequests());
         return ResponseEntity.ok(results);
     }
 
+    @PostMapping(value = "/bulk/stream", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    @Operation(summary = "Stream bulk QR generation",
+            description = "Reads one text/username JSON object per line and writes one result per line as soon as it is ready")
+    @ApiResponse(responseCode = "200", description = "Results are streamed as NDJSON")
+    public void streamBulkQrCodes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        bulkQrStreamService.generate(request.getInputStream(), response.getOutputStream());
+    }
+
 
     @GetMapping("/by-user")
-    @Operation(summary = "Get QR codes by username", description = "Retrieves all QR codes associated with a specific username")
+    @Operation(summary = "Get QR codes by username",
+            description = "Returns a page of QR codes of a user ordered by id; pass X-Next-Cursor as 'after' for the next page")
     @ApiResponse(responseCode = "200", description = "QR codes retrieved successfully")
     @ApiResponse(responseCode = "404", description = "User not found or no QR codes associated")
-    public ResponseEntity<List<QrEntity>> getQrCodesByUser(
-            @RequestParam String username) {
-        if (username == null || username.trim().isEmpty()) {
+    public ResponseEntity<List<QrSummaryResponse>> getQrCodesByUser(
+            @RequestParam String username,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        if (username == null || username.trim().isEmpty() || limit < 1 || limit > CursorPage.MAX_LIMIT) {
             return ResponseEntity.badRequest().build();
         }
-        List<QrEntity> qrCodes = qrService.getQrCodesByUsername(username);
+        // Только метаданные и ссылка на картинку, сами PNG отдаются через /{id}/image.
+        // Следующая страница: ?after=<X-Next-Cursor>
+        CursorPage<QrSummaryResponse> page = qrService.getQrCodesByUsername(username, after, limit);
+        // Список меняется при любой генерации, поэтому кэш каждый раз переспрашивает, а ответ 304 без тела
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(ETags.of(page.nextCursor(), page.items().stream()
+                        .map(qr -> qr.getId() + ":" + qr.getContent())
+                        .toList()))
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (page.nextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+        }
+        return response.body(page.items());
+    }
 
-        return ResponseEntity.ok(qrCodes);
+    @GetMapping(value = "/{id}/image",
+            produces = {MediaType.IMAGE_PNG_VALUE, QrImageFormat.SVG_VALUE, QrImageFormat.MODULES_VALUE})
+    @Operation(summary = "Get QR image",
+            description = "Returns the QR code as PNG, SVG or module matrix depending on the Accept header")
+    @ApiResponse(responseCode = "200", description = "QR image returned")
+    @ApiResponse(responseCode = "304", description = "Image matches If-None-Match")
+    @ApiResponse(responseCode = "404", description = "QR code not found")
+    public void getQrImage(@PathVariable Long id,
+                           @RequestParam(required = false) Integer size,
+                           @RequestParam(required = false) Integer margin,
+                           @RequestParam(required = false) String errorCorrection,
+                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                           WebRequest webRequest,
+                           HttpServletResponse response) throws IOException {
+        // Формат выбирается по Accept: без Vary общий кэш отдаст PNG тому, кто просил SVG, и наоборот.
+        // Заголовок ставится до любых ответов, включая 304 и 404
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        QrImageFormat format = QrImageFormat.fromAccept(accept, QrImageFormat.PNG);
+        QrRenderOptions options = QrRenderOptions.of(size, margin, errorCorrection);
+        // Байты определяются содержимым, форматом и параметрами отрисовки. Совпал If-None-Match —
+        // отвечаем 304, не открывая картинку и не читая хранилище
+        Optional<String> contentHash = qrService.findContentHash(id);
+        if (contentHash.isPresent()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL.getHeaderValue());
+            if (webRequest.checkNotModified(ETags.of(contentHash.get(), format, options.cacheKey()))) {
+                return;
+            }
+        }
+        Optional<BytesLease> image = qrService.openQrImage(id, format, options);
+        if (image.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Пишем напрямую из off-heap памяти кэша; пока идёт запись, кусок закреплён и не вытесняется
+        try (BytesLease lease = image.get()) {
+            response.setContentType(format.getMediaType().toString());
+            response.setContentLength(lease.length());
+            lease.writeTo(response.getOutputStream());
+        }
     }
     @Autowired
     private RequestCounterService requestCounterService;
 
     @GetMapping("/request-count")
-    @Operation(summary = "Get request count", description = "Returns total number of requests handled")
+    @Operation(summary = "Get request count", description = "Returns number of requests handled in the current metrics window")
     public ResponseEntity<Long> getRequestCount() {
         return ResponseEntity.ok(requestCounterService.getCount());
     }
 
     @PostMapping("/reset-count")
-    @Operation(summary = "Reset request count", description = "Resets the request counter to zero")
+    @Operation(summary = "Reset request count", description = "Starts a new metrics window, see /api/metrics/requests")
     public ResponseEntity<Void> resetRequestCount() {
         requestCounterService.reset();
         return ResponseEntity.noContent().build();
@@ -0,0 +1,77 @@
+package com.example.ANONIMUS.controller;
+
+import com.example.ANONIMUS.dto.BulkJobStatusResponse;
+import com.example.ANONIMUS.dto.BulkQrRequest;
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.service.BulkJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/qr/jobs")
+public class QrJobController {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final BulkJobService bulkJobService;
+
+    public QrJobController(BulkJobService bulkJobService) {
+        this.bulkJobService = bulkJobService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Submit bulk QR job", description = "Queues a bulk generation job and returns its id immediately")
+    @ApiResponse(responseCode = "202", description = "Job accepted")
+    @ApiResponse(responseCode = "400", description = "Invalid input payload")
+    @ApiResponse(responseCode = "429", description = "Job queue is full")
+    public ResponseEntity<BulkJobStatusResponse> submitJob(@RequestBody BulkQrRequest bulkRequest) {
+        if (bulkRequest == null || bulkRequest.getRequests() == null || bulkRequest.getRequests().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return bulkJobService.submit(bulkRequest.getRequests())
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElse(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get bulk job status", description = "Returns progress and throughput of a bulk job")
+    @ApiResponse(responseCode = "200", description = "Job found")
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    public ResponseEntity<BulkJobStatusResponse> getJob(@PathVariable Long id) {
+        return bulkJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/results")
+    @Operation(summary = "Get bulk job results", description = "Returns a page of results of a completed job")
+    @ApiResponse(responseCode = "200", description = "Results page returned")
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    @ApiResponse(responseCode = "409", description = "Job is not completed yet")
+    public ResponseEntity<List<BulkQrResult>> getResults(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<BulkJobStatusResponse> job = bulkJobService.getJob(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!"COMPLETED".equals(job.get().getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(bulkJobService.getResults(id, page, size));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ANONIMUS.controller;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.example.ANONIMUS.dto.QrResponse;
+import com.example.ANONIMUS.service.ReactiveQrService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+// Те же операции, что в QrController, но поток Tomcat освобождается сразу: ответ дописывается асинхронно
+@RestController
+@RequestMapping("/api/reactive/qr")
+public class ReactiveQrController {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final ReactiveQrService reactiveQrService;
+
+    public ReactiveQrController(ReactiveQrService reactiveQrService) {
+        this.reactiveQrService = reactiveQrService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Generate QR code asynchronously",
+            description = "Same as GET /api/qr, persistence and rendering run on bounded pools")
+    @ApiResponse(responseCode = "200", description = "QR generated successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid input parameters")
+    @ApiResponse(responseCode = "503", description = "Pools are saturated, retry later")
+    public Mono<ResponseEntity<QrResponse>> generateQrCode(
+            @RequestParam String text,
+            @RequestParam String username,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer margin,
+            @RequestParam(required = false) String errorCorrection) {
+
+        if (text == null || text.trim().isEmpty() || username == null || username.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        QrRenderOptions options = QrRenderOptions.of(size, margin, errorCorrection);
+        return reactiveQrService.generate(text, username, options).map(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/bulk/stream", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    @Operation(summary = "Stream bulk QR generation asynchronously",
+            description = "Same as POST /api/qr/bulk/stream, input is read only as fast as the client consumes results")
+    @ApiResponse(responseCode = "200", description = "Results are streamed as NDJSON")
+    public Flux<BulkQrResult> streamBulkQrCodes(HttpServletRequest request) throws IOException {
+        return reactiveQrService.generateBulk(request.getInputStream());
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.ANONIMUS.controller;
 
+import com.example.ANONIMUS.dto.CursorPage;
+import com.example.ANONIMUS.dto.UserSummaryResponse;
 import com.example.ANONIMUS.model.User;
 import com.example.ANONIMUS.service.UserService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -21,15 +24,34 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserSummaryResponse> getUserById(@PathVariable Long id) {
         return userService.getUserById(id)
-                .map(user -> ResponseEntity.ok(user))
+                // username — единственное изменяемое поле, ETag от него; при совпадении Spring отдаст 304
+                .map(user -> ResponseEntity.ok()
+                        .eTag(ETags.of(user.getId(), user.getUsername()))
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(user))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Keyset-пагинация по id: следующая страница — ?after=<X-Next-Cursor>
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<List<UserSummaryResponse>> getAllUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        if (limit < 1 || limit > CursorPage.MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        CursorPage<UserSummaryResponse> page = userService.getUsers(after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(ETags.of(page.nextCursor(), page.items().stream()
+                        .map(user -> user.getId() + ":" + user.getUsername())
+                        .toList()))
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (page.nextCursor() != null) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()));
+        }
+        return response.body(page.items());
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,60 @@
+package com.example.ANONIMUS.dao;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Вставка новых QR пачкой без гонки на уникальном индексе: строку с тем же хэшем, вставленную параллельным
+// запросом, ON CONFLICT пропускает. Порядок вставки по хэшу одинаков во всех транзакциях, поэтому две пачки
+// с пересекающимися текстами не ловят взаимную блокировку на индексе
+@Repository
+public class QrCodeDao {
+    private static final String NEXT_IDS = "SELECT nextval('qr_codes_seq') FROM generate_series(1, ?)";
+    // Без цели конфликта: H2 в режиме PostgreSQL её не понимает, а id берётся из последовательности
+    // и конфликтовать может только content_hash
+    private static final String INSERT_QR =
+            "INSERT INTO qr_codes (id, content, content_hash, created_at) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public QrCodeDao(JdbcTemplate jdbcTemplate,
+                     @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // Возвращает id, назначенные каждому хэшу. Строка с этим id в таблице есть, только если вставили её мы;
+    // иначе хэш уже занят строкой другой транзакции, и её нужно перечитать.
+    // Значения последовательности берутся напрямую, а не из пула Hibernate: они не пересекаются с его диапазонами
+    @Timed(value = "qr.jdbc.batch", extraTags = {"statement", "insert_qr_codes"}, histogram = true)
+    public Map<String, Long> insertMissing(Map<String, String> contentByHash) {
+        if (contentByHash.isEmpty()) {
+            return Map.of();
+        }
+        List<Map.Entry<String, String>> rows = new ArrayList<>(contentByHash.entrySet());
+        rows.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS, Long.class, rows.size());
+        Map<String, Long> idsByHash = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            idsByHash.put(rows.get(i).getKey(), ids.get(i));
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_QR, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, idsByHash.get(row.getKey()));
+            ps.setString(2, row.getValue());
+            ps.setString(3, row.getKey());
+            ps.setTimestamp(4, now);
+        });
+        return idsByHash;
+    }
+}
@@ -1,29 +1,71 @@
 package com.example.ANONIMUS.dao;
 
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Repository;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.util.Map;
 
 @Repository
 public class QrDao {
 
+    // QRCodeWriter не хранит состояния, один экземпляр на все потоки
+    private static final QRCodeWriter QR_CODE_WRITER = new QRCodeWriter();
+
+    @Timed(value = "qr.generate", description = "Default PNG rendering of new QR codes", histogram = true)
     public byte[] generateQrCode(String text) {
-        try {
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, 200, 200);
+        return render(text, QrImageFormat.PNG, QrRenderOptions.defaults());
+    }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
+    public byte[] render(String text, QrImageFormat format, QrRenderOptions options) {
+        return rasterize(encodeModules(text, options.getErrorCorrection()), format, options);
+    }
 
-            return outputStream.toByteArray();
-        } catch (WriterException | IOException e) {
+    // Дорогая часть: Reed-Solomon и выбор маски. Размер 0 и без рамки — ровно один бит на модуль
+    @Timed(value = "qr.encode", description = "Encoding text into a QR module matrix", histogram = true)
+    public BitMatrix encodeModules(String text, String errorCorrection) {
+        try {
+            return QR_CODE_WRITER.encode(text, BarcodeFormat.QR_CODE, 0, 0, Map.of(
+                    EncodeHintType.MARGIN, 0,
+                    EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.valueOf(errorCorrection)));
+        } catch (WriterException e) {
             throw new RuntimeException("Failed to generate QR code", e);
         }
     }
-}
\ No newline at end of file
+
+    // Дешёвая часть: масштабирование готовой матрицы модулей в нужный формат
+    @Timed(value = "qr.rasterize", description = "Scaling a module matrix into PNG, SVG or module output", histogram = true)
+    public byte[] rasterize(BitMatrix modules, QrImageFormat format, QrRenderOptions options) {
+        int margin = options.getMargin();
+        return switch (format) {
+            case PNG -> QrPngEncoder.encode(scale(modules, options.getSize(), margin));
+            case SVG -> QrSvgEncoder.encode(modules, margin,
+                    Math.max(options.getSize(), modules.getWidth() + 2 * margin));
+            case MODULES -> QrModuleEncoder.encode(modules);
+        };
+    }
+
+    // Повторяет раскладку QRCodeWriter: целый множитель на модуль, символ по центру
+    static BitMatrix scale(BitMatrix modules, int size, int margin) {
+        int inputWidth = modules.getWidth();
+        int outputWidth = Math.max(size, inputWidth + 2 * margin);
+        int multiple = outputWidth / (inputWidth + 2 * margin);
+        int padding = (outputWidth - inputWidth * multiple) / 2;
+        BitMatrix output = new BitMatrix(outputWidth, outputWidth);
+        for (int inputY = 0, outputY = padding; inputY < inputWidth; inputY++, outputY += multiple) {
+            for (int inputX = 0, outputX = padding; inputX < inputWidth; inputX++, outputX += multiple) {
+                if (modules.get(inputX, inputY)) {
+                    output.setRegion(outputX, outputY, multiple, multiple);
+                }
+            }
+        }
+        return output;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ANONIMUS.dao;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+// Компактная матрица модулей: [N][строки по ceil(N/8) байт], старший бит первый, 1 — тёмный модуль
+final class QrModuleEncoder {
+
+    private QrModuleEncoder() {
+    }
+
+    static byte[] encode(BitMatrix modules) {
+        int size = modules.getWidth();
+        int rowBytes = (size + 7) >>> 3;
+        byte[] out = new byte[1 + size * rowBytes];
+        out[0] = (byte) size;
+        BitArray row = new BitArray(size);
+        int offset = 1;
+        for (int y = 0; y < size; y++) {
+            row = modules.getRow(y, row);
+            int[] bits = row.getBitArray();
+            int end = offset + rowBytes;
+            for (int word = 0; offset < end; word++) {
+                int packed = Integer.reverse(bits[word]);
+                for (int shift = 24; shift >= 0 && offset < end; shift -= 8) {
+                    out[offset++] = (byte) (packed >>> shift);
+                }
+            }
+        }
+        return out;
+    }
+}
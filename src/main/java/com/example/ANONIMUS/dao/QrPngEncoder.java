@@ -0,0 +1,148 @@
+package com.example.ANONIMUS.dao;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Пишет BitMatrix сразу в 1-битный grayscale PNG, без AWT и ImageIO.
+// Deflater и буферы берутся из общего пула, а не из ThreadLocal: с виртуальными потоками каждый запрос
+// получал бы новый Deflater, чья нативная память освобождается только когда до него доберётся GC
+final class QrPngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_OVERHEAD = 12; // длина + тип + CRC
+    private static final int IHDR_LENGTH = 13;
+    // Растр QR — длинные одноцветные серии: уровень по умолчанию сжимает их так же, как BEST_COMPRESSION,
+    // но в несколько раз быстрее, а BEST_SPEED ещё быстрее, но даёт PNG заметно крупнее
+    // (сравнение уровней — QrDaoBenchmark.encodePng)
+    static final int COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    // Размер пула рассчитан на CPU-пул рендеринга; при всплеске лишние наборы закрываются сразу, а не ждут GC
+    private static final ArrayBlockingQueue<Buffers> POOL =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    private QrPngEncoder() {
+    }
+
+    static byte[] encode(BitMatrix matrix) {
+        return encode(matrix, COMPRESSION_LEVEL);
+    }
+
+    static byte[] encode(BitMatrix matrix, int level) {
+        Buffers buffers = POOL.poll();
+        if (buffers == null) {
+            buffers = new Buffers();
+        }
+        try {
+            return encode(matrix, buffers, level);
+        } finally {
+            if (!POOL.offer(buffers)) {
+                buffers.deflater.end();
+            }
+        }
+    }
+
+    private static byte[] encode(BitMatrix matrix, Buffers buffers, int level) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) >>> 3;
+
+        // Сырые данные: на каждую строку байт фильтра (0 = None) и пиксели по 8 на байт, старший бит первый
+        byte[] raw = buffers.raw(height * (rowBytes + 1));
+        BitArray row = buffers.row;
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            raw[offset++] = 0;
+            packRow(row.getBitArray(), raw, offset, rowBytes);
+            offset += rowBytes;
+        }
+        buffers.row = row;
+
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(raw, 0, offset);
+        deflater.finish();
+        byte[] compressed = buffers.compressed;
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                buffers.compressed = compressed;
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        byte[] png = new byte[SIGNATURE.length + CHUNK_OVERHEAD * 3 + IHDR_LENGTH + compressedLength];
+        System.arraycopy(SIGNATURE, 0, png, 0, SIGNATURE.length);
+        int pos = SIGNATURE.length;
+
+        byte[] header = buffers.header;
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 1;  // глубина цвета
+        header[9] = 0;  // grayscale
+        header[10] = 0; // deflate
+        header[11] = 0; // стандартные фильтры
+        header[12] = 0; // без interlace
+        CRC32 crc = buffers.crc;
+        pos = writeChunk(png, pos, 'I', 'H', 'D', 'R', header, IHDR_LENGTH, crc);
+        pos = writeChunk(png, pos, 'I', 'D', 'A', 'T', compressed, compressedLength, crc);
+        writeChunk(png, pos, 'I', 'E', 'N', 'D', compressed, 0, crc);
+        return png;
+    }
+
+    // В BitArray бит x лежит в int-е x / 32 начиная с младшего, а установленный бит — чёрный модуль.
+    // В PNG нужен обратный порядок бит в байте и 0 для чёрного
+    private static void packRow(int[] bits, byte[] out, int offset, int rowBytes) {
+        int end = offset + rowBytes;
+        for (int word = 0; offset < end; word++) {
+            int packed = ~Integer.reverse(bits[word]);
+            for (int shift = 24; shift >= 0 && offset < end; shift -= 8) {
+                out[offset++] = (byte) (packed >>> shift);
+            }
+        }
+    }
+
+    private static int writeChunk(byte[] png, int pos, char a, char b, char c, char d,
+                                  byte[] data, int length, CRC32 crc) {
+        writeInt(png, pos, length);
+        int typeStart = pos + 4;
+        png[typeStart] = (byte) a;
+        png[typeStart + 1] = (byte) b;
+        png[typeStart + 2] = (byte) c;
+        png[typeStart + 3] = (byte) d;
+        System.arraycopy(data, 0, png, typeStart + 4, length);
+        crc.reset();
+        crc.update(png, typeStart, 4 + length);
+        writeInt(png, typeStart + 4 + length, (int) crc.getValue());
+        return typeStart + 4 + length + 4;
+    }
+
+    private static void writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
+    }
+
+    private static final class Buffers {
+        private final Deflater deflater = new Deflater(COMPRESSION_LEVEL);
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[IHDR_LENGTH];
+        private BitArray row = new BitArray();
+        private byte[] raw = new byte[0];
+        private byte[] compressed = new byte[1024];
+
+        private byte[] raw(int size) {
+            if (raw.length < size) {
+                raw = new byte[size];
+            }
+            return raw;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ANONIMUS.dao;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.nio.charset.StandardCharsets;
+
+// Векторный QR: один path, соседние тёмные модули строки сливаются в один прямоугольник
+final class QrSvgEncoder {
+
+    private QrSvgEncoder() {
+    }
+
+    static byte[] encode(BitMatrix modules, int margin, int displaySize) {
+        int size = modules.getWidth();
+        int viewBox = size + 2 * margin;
+        StringBuilder svg = new StringBuilder(256 + size * size);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(displaySize)
+                .append("\" height=\"").append(displaySize)
+                .append("\" viewBox=\"0 0 ").append(viewBox).append(' ').append(viewBox)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < size; y++) {
+            int x = 0;
+            while (x < size) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < size && modules.get(x, y)) {
+                    x++;
+                }
+                int run = x - start;
+                svg.append('M').append(start + margin).append(' ').append(y + margin)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
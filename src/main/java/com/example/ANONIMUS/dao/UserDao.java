@@ -0,0 +1,35 @@
+package com.example.ANONIMUS.dao;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+// Массовое создание пользователей одним батчем. Имя уникально, поэтому пользователи,
+// созданные параллельным запросом, просто пропускаются
+@Repository
+public class UserDao {
+    private static final String INSERT_USER =
+            "INSERT INTO app_users (username) VALUES (?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public UserDao(JdbcTemplate jdbcTemplate,
+                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Timed(value = "qr.jdbc.batch", extraTags = {"statement", "insert_users"}, histogram = true)
+    public void insertMissing(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        // Один порядок вставки во всех транзакциях: пересекающиеся пачки не блокируют друг друга крест-накрест
+        jdbcTemplate.batchUpdate(INSERT_USER, usernames.stream().sorted().toList(), batchSize,
+                (ps, username) -> ps.setString(1, username));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ANONIMUS.dao;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Связи user_qr пишутся напрямую пачками: через коллекцию User.qrCodes пришлось бы
+// загружать все QR пользователя и делать по INSERT на каждую связь
+@Repository
+public class UserQrLinkDao {
+    private static final String INSERT_LINK =
+            "INSERT INTO user_qr (user_id, qr_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+    private static final String DELETE_LINK = "DELETE FROM user_qr WHERE user_id = ? AND qr_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public UserQrLinkDao(JdbcTemplate jdbcTemplate,
+                         @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Timed(value = "qr.jdbc.batch", extraTags = {"statement", "insert_links"}, histogram = true)
+    public void insertLinks(Collection<Link> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        // Отсортированный порядок, как в UserDao: иначе две пачки с общими связями могут взаимно заблокироваться
+        List<Link> sorted = links.stream()
+                .sorted(Comparator.comparingLong(Link::userId).thenComparingLong(Link::qrId))
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_LINK, sorted, batchSize, (ps, link) -> {
+            ps.setLong(1, link.userId());
+            ps.setLong(2, link.qrId());
+        });
+    }
+
+    public void deleteLink(Link link) {
+        jdbcTemplate.update(DELETE_LINK, link.userId(), link.qrId());
+    }
+
+    public record Link(long userId, long qrId) {
+    }
+}
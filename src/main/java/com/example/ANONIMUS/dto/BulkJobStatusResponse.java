@@ -0,0 +1,90 @@
+package com.example.ANONIMUS.dto;
+
+import com.example.ANONIMUS.model.BulkJob;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class BulkJobStatusResponse {
+    private Long id;
+    private String status;
+    private int totalItems;
+    private int processedItems;
+    private int failedItems;
+    private double itemsPerSecond;
+    private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    public BulkJobStatusResponse() {
+    }
+
+    public static BulkJobStatusResponse from(BulkJob job) {
+        BulkJobStatusResponse response = new BulkJobStatusResponse();
+        response.id = job.getId();
+        response.status = job.getStatus().name();
+        response.totalItems = job.getTotalItems();
+        response.processedItems = job.getProcessedItems();
+        response.failedItems = job.getFailedItems();
+        response.error = job.getError();
+        response.createdAt = job.getCreatedAt();
+        response.startedAt = job.getStartedAt();
+        response.finishedAt = job.getFinishedAt();
+        if (job.getStartedAt() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : Instant.now();
+            long millis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+            response.itemsPerSecond = job.getProcessedItems() * 1000.0 / millis;
+        }
+        return response;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public int getProcessedItems() {
+        return processedItems;
+    }
+
+    public int getFailedItems() {
+        return failedItems;
+    }
+
+    public double getItemsPerSecond() {
+        return itemsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkJobStatusResponse{" +
+                "id=" + id +
+                ", status='" + status + '\'' +
+                ", processedItems=" + processedItems + "/" + totalItems +
+                '}';
+    }
+}
@@ -5,6 +5,8 @@ import java.util.Objects;
 public class BulkQrResult {
     private String inputText;
     private String inputUsername;
+    private Long qrId;
+    private String imageUrl;
     private String qrCodeBase64;
     private String error;
 
@@ -22,6 +24,13 @@ public class BulkQrResult {
         return new BulkQrResult(inputText, inputUsername, qrCodeBase64, null);
     }
 
+    public static BulkQrResult success(String inputText, String inputUsername, Long qrId, String qrCodeBase64) {
+        BulkQrResult result = new BulkQrResult(inputText, inputUsername, qrCodeBase64, null);
+        result.setQrId(qrId);
+        result.setImageUrl(QrSummaryResponse.imageUrlFor(qrId));
+        return result;
+    }
+
     public static BulkQrResult failure(String inputText, String inputUsername, String error) {
         return new BulkQrResult(inputText, inputUsername, null, error);
     }
@@ -43,6 +52,22 @@ public class BulkQrResult {
         this.inputUsername = inputUsername;
     }
 
+    public Long getQrId() {
+        return qrId;
+    }
+
+    public void setQrId(Long qrId) {
+        this.qrId = qrId;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
     public String getQrCodeBase64() {
         return qrCodeBase64;
     }
@@ -66,13 +91,14 @@ public class BulkQrResult {
         BulkQrResult that = (BulkQrResult) o;
         return Objects.equals(inputText, that.inputText) &&
                 Objects.equals(inputUsername, that.inputUsername) &&
+                Objects.equals(qrId, that.qrId) &&
                 Objects.equals(qrCodeBase64, that.qrCodeBase64) &&
                 Objects.equals(error, that.error);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(inputText, inputUsername, qrCodeBase64, error);
+        return Objects.hash(inputText, inputUsername, qrId, qrCodeBase64, error);
     }
 
     @Override
@@ -80,6 +106,7 @@ public class BulkQrResult {
         return "BulkQrResult{" +
                 "inputText='" + inputText + '\'' +
                 ", inputUsername='" + inputUsername + '\'' +
+                ", qrId=" + qrId +
                 ", qrCodeBase64='" + (qrCodeBase64 != null ? "[present]" : "null") + '\'' +
                 ", error='" + error + '\'' +
                 '}';
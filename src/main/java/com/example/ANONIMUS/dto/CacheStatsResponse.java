@@ -0,0 +1,74 @@
+package com.example.ANONIMUS.dto;
+
+public class CacheStatsResponse {
+    private final long size;
+    private final long weightedSize;
+    private final long maximumWeight;
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRate;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final OffHeapStatsResponse offHeap;
+
+    public CacheStatsResponse(long size, long weightedSize, long maximumWeight, long hitCount,
+                              long missCount, double hitRate, long evictionCount, long evictionWeight,
+                              OffHeapStatsResponse offHeap) {
+        this.size = size;
+        this.weightedSize = weightedSize;
+        this.maximumWeight = maximumWeight;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.offHeap = offHeap;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    public OffHeapStatsResponse getOffHeap() {
+        return offHeap;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatsResponse{" +
+                "size=" + size +
+                ", weightedSize=" + weightedSize +
+                ", hitRate=" + hitRate +
+                ", evictionCount=" + evictionCount +
+                ", offHeap=" + offHeap +
+                '}';
+    }
+}
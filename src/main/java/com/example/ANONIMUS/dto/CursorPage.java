@@ -0,0 +1,28 @@
+package com.example.ANONIMUS.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Страница keyset-пагинации: nextCursor — id последнего элемента, null если дальше ничего нет
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public CursorPage {
+        items = List.copyOf(items);
+    }
+
+    // rows запрошены с лимитом limit + 1: лишняя строка только говорит, что есть следующая страница
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, idOf.apply(items.get(limit - 1)));
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ANONIMUS.dto;
+
+import java.util.Map;
+
+public class EndpointMetricsResponse {
+    private final String endpoint;
+    private final long count;
+    private final Map<Integer, Long> statusCounts;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+
+    public EndpointMetricsResponse(String endpoint, long count, Map<Integer, Long> statusCounts,
+                                   double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+        this.endpoint = endpoint;
+        this.count = count;
+        this.statusCounts = statusCounts;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Map<Integer, Long> getStatusCounts() {
+        return statusCounts;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getP999Millis() {
+        return p999Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointMetricsResponse{" +
+                "endpoint='" + endpoint + '\'' +
+                ", count=" + count +
+                ", statusCounts=" + statusCounts +
+                ", p99Millis=" + p99Millis +
+                '}';
+    }
+}
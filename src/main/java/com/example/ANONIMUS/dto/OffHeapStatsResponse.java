@@ -0,0 +1,60 @@
+package com.example.ANONIMUS.dto;
+
+public class OffHeapStatsResponse {
+    private final long entries;
+    private final long usedBytes;
+    private final long reservedBytes;
+    private final long capacityBytes;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    public OffHeapStatsResponse(long entries, long usedBytes, long reservedBytes, long capacityBytes,
+                                long hitCount, long missCount, long evictionCount) {
+        this.entries = entries;
+        this.usedBytes = usedBytes;
+        this.reservedBytes = reservedBytes;
+        this.capacityBytes = capacityBytes;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStatsResponse{" +
+                "entries=" + entries +
+                ", usedBytes=" + usedBytes +
+                ", reservedBytes=" + reservedBytes +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
@@ -6,6 +6,10 @@ import java.util.Objects;
 public class QrGenerationRequest {
     private String text;
     private String username;
+    // Необязательные параметры отрисовки, см. QrRenderOptions
+    private Integer size;
+    private Integer margin;
+    private String errorCorrection;
 
     public QrGenerationRequest() {
     }
@@ -31,17 +35,43 @@ public class QrGenerationRequest {
         this.username = username;
     }
 
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Integer getMargin() {
+        return margin;
+    }
+
+    public void setMargin(Integer margin) {
+        this.margin = margin;
+    }
+
+    public String getErrorCorrection() {
+        return errorCorrection;
+    }
+
+    public void setErrorCorrection(String errorCorrection) {
+        this.errorCorrection = errorCorrection;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         QrGenerationRequest that = (QrGenerationRequest) o;
-        return Objects.equals(text, that.text) && Objects.equals(username, that.username);
+        return Objects.equals(text, that.text) && Objects.equals(username, that.username)
+                && Objects.equals(size, that.size) && Objects.equals(margin, that.margin)
+                && Objects.equals(errorCorrection, that.errorCorrection);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(text, username);
+        return Objects.hash(text, username, size, margin, errorCorrection);
     }
 
     @Override
@@ -49,6 +79,9 @@ public class QrGenerationRequest {
         return "QrGenerationRequest{" +
                 "text='" + text + '\'' +
                 ", username='" + username + '\'' +
+                ", size=" + size +
+                ", margin=" + margin +
+                ", errorCorrection='" + errorCorrection + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.example.ANONIMUS.dto;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Форматы картинки QR, выбираются по заголовку Accept
+public enum QrImageFormat {
+    PNG(MediaType.IMAGE_PNG_VALUE),
+    SVG("image/svg+xml"),
+    // Байт с размером N, затем N строк модулей по ceil(N/8) байт, старший бит первый, 1 — тёмный модуль.
+    // Без рамки (quiet zone) — клиент добавляет её сам при печати
+    MODULES("application/vnd.qr-modules");
+
+    public static final String SVG_VALUE = "image/svg+xml";
+    public static final String MODULES_VALUE = "application/vnd.qr-modules";
+
+    private final MediaType mediaType;
+
+    QrImageFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    // Первый по качеству/точности формат из Accept; если ничего не подошло — fallback
+    public static QrImageFormat fromAccept(String accept, QrImageFormat fallback) {
+        if (accept == null || accept.isBlank()) {
+            return fallback;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            // Сортировка устойчивая: внутри одного q остаётся порядок по точности
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            return fallback;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                continue;
+            }
+            for (QrImageFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ANONIMUS.dto;
+
+import java.util.Objects;
+import java.util.Set;
+
+// Параметры отрисовки QR. Пустые значения заменяются значениями по умолчанию,
+// с которыми сохраняется PNG в qr_images
+public final class QrRenderOptions {
+    public static final int DEFAULT_SIZE = 200;
+    public static final int DEFAULT_MARGIN = 4;
+    public static final String DEFAULT_ERROR_CORRECTION = "L";
+    public static final int MAX_SIZE = 2000;
+    public static final int MAX_MARGIN = 16;
+    private static final Set<String> ERROR_CORRECTION_LEVELS = Set.of("L", "M", "Q", "H");
+
+    private static final QrRenderOptions DEFAULTS =
+            new QrRenderOptions(DEFAULT_SIZE, DEFAULT_MARGIN, DEFAULT_ERROR_CORRECTION);
+
+    private final int size;
+    private final int margin;
+    private final String errorCorrection;
+
+    private QrRenderOptions(int size, int margin, String errorCorrection) {
+        this.size = size;
+        this.margin = margin;
+        this.errorCorrection = errorCorrection;
+    }
+
+    public static QrRenderOptions defaults() {
+        return DEFAULTS;
+    }
+
+    // size 0 — минимально возможный размер, по одному пикселю на модуль
+    public static QrRenderOptions of(Integer size, Integer margin, String errorCorrection) {
+        if (size == null && margin == null && errorCorrection == null) {
+            return DEFAULTS;
+        }
+        int resolvedSize = size != null ? size : DEFAULT_SIZE;
+        int resolvedMargin = margin != null ? margin : DEFAULT_MARGIN;
+        String resolvedErrorCorrection = errorCorrection != null
+                ? errorCorrection.trim().toUpperCase() : DEFAULT_ERROR_CORRECTION;
+        if (resolvedSize < 0 || resolvedSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Size must be between 0 and " + MAX_SIZE);
+        }
+        if (resolvedMargin < 0 || resolvedMargin > MAX_MARGIN) {
+            throw new IllegalArgumentException("Margin must be between 0 and " + MAX_MARGIN);
+        }
+        if (!ERROR_CORRECTION_LEVELS.contains(resolvedErrorCorrection)) {
+            throw new IllegalArgumentException("Error correction must be one of L, M, Q, H");
+        }
+        return new QrRenderOptions(resolvedSize, resolvedMargin, resolvedErrorCorrection);
+    }
+
+    public static QrRenderOptions of(QrGenerationRequest request) {
+        return of(request.getSize(), request.getMargin(), request.getErrorCorrection());
+    }
+
+    public boolean isDefault() {
+        return equals(DEFAULTS);
+    }
+
+    public String cacheKey() {
+        return size + "_" + margin + "_" + errorCorrection;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMargin() {
+        return margin;
+    }
+
+    public String getErrorCorrection() {
+        return errorCorrection;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QrRenderOptions that = (QrRenderOptions) o;
+        return size == that.size && margin == that.margin && Objects.equals(errorCorrection, that.errorCorrection);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, margin, errorCorrection);
+    }
+
+    @Override
+    public String toString() {
+        return "QrRenderOptions{" +
+                "size=" + size +
+                ", margin=" + margin +
+                ", errorCorrection='" + errorCorrection + '\'' +
+                '}';
+    }
+}
@@ -1,13 +1,29 @@
 package com.example.ANONIMUS.dto;
 
 public class QrResponse {
+    private Long id;
     private String qrCode;
+    private String imageUrl;
 
     public QrResponse(String qrCode) {
         this.qrCode = qrCode;
     }
 
+    public QrResponse(Long id, String qrCode) {
+        this.id = id;
+        this.qrCode = qrCode;
+        this.imageUrl = QrSummaryResponse.imageUrlFor(id);
+    }
+
     // Геттеры и сеттеры
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getQrCode() {
         return qrCode;
     }
@@ -15,4 +31,12 @@ public class QrResponse {
     public void setQrCode(String qrCode) {
         this.qrCode = qrCode;
     }
-}
\ No newline at end of file
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+}
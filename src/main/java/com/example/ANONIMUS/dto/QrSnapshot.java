@@ -0,0 +1,18 @@
+package com.example.ANONIMUS.dto;
+
+import com.example.ANONIMUS.model.QrEntity;
+
+import java.time.Instant;
+
+// Неизменяемый снимок QR для кэша: без связей с пользователями и без ссылок на сессию Hibernate
+public record QrSnapshot(Long id, String content, String contentHash, Instant createdAt) {
+
+    public static QrSnapshot from(QrEntity qrEntity) {
+        return new QrSnapshot(qrEntity.getId(), qrEntity.getContent(), qrEntity.getContentHash(),
+                qrEntity.getCreatedAt());
+    }
+
+    public QrSummaryResponse toSummary() {
+        return new QrSummaryResponse(id, content, createdAt);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ANONIMUS.dto;
+
+import java.time.Instant;
+import java.util.Objects;
+
+public class QrSummaryResponse {
+    private Long id;
+    private String content;
+    private String imageUrl;
+    private Instant createdAt;
+
+    public QrSummaryResponse() {
+    }
+
+    public QrSummaryResponse(Long id, String content) {
+        this.id = id;
+        this.content = content;
+        this.imageUrl = imageUrlFor(id);
+    }
+
+    public QrSummaryResponse(Long id, String content, Instant createdAt) {
+        this(id, content);
+        this.createdAt = createdAt;
+    }
+
+    public static String imageUrlFor(Long id) {
+        return "/api/qr/" + id + "/image";
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QrSummaryResponse that = (QrSummaryResponse) o;
+        return Objects.equals(id, that.id) && Objects.equals(content, that.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, content);
+    }
+
+    @Override
+    public String toString() {
+        return "QrSummaryResponse{" +
+                "id=" + id +
+                ", content='" + content + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ANONIMUS.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class RequestMetricsResponse {
+    private final Instant windowStart;
+    private final Instant windowEnd;
+    private final long totalRequests;
+    private final List<EndpointMetricsResponse> endpoints;
+
+    public RequestMetricsResponse(Instant windowStart, Instant windowEnd, long totalRequests,
+                                  List<EndpointMetricsResponse> endpoints) {
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.totalRequests = totalRequests;
+        this.endpoints = endpoints;
+    }
+
+    public Instant getWindowStart() {
+        return windowStart;
+    }
+
+    public Instant getWindowEnd() {
+        return windowEnd;
+    }
+
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public List<EndpointMetricsResponse> getEndpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetricsResponse{" +
+                "windowStart=" + windowStart +
+                ", totalRequests=" + totalRequests +
+                ", endpoints=" + endpoints.size() +
+                '}';
+    }
+}
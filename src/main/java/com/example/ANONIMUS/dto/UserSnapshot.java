@@ -0,0 +1,15 @@
+package com.example.ANONIMUS.dto;
+
+import com.example.ANONIMUS.model.User;
+
+// Неизменяемый снимок пользователя для кэша, коллекция qrCodes в него не попадает
+public record UserSnapshot(Long id, String username) {
+
+    public static UserSnapshot from(User user) {
+        return new UserSnapshot(user.getId(), user.getUsername());
+    }
+
+    public UserSummaryResponse toSummary() {
+        return new UserSummaryResponse(id, username);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ANONIMUS.dto;
+
+import java.util.Objects;
+
+public class UserSummaryResponse {
+    private Long id;
+    private String username;
+
+    public UserSummaryResponse() {
+    }
+
+    public UserSummaryResponse(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserSummaryResponse that = (UserSummaryResponse) o;
+        return Objects.equals(id, that.id) && Objects.equals(username, that.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, username);
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummaryResponse{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                '}';
+    }
+}
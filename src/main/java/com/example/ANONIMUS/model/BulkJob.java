@@ -0,0 +1,114 @@
+package com.example.ANONIMUS.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "bulk_jobs")
+public class BulkJob {
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+
+    @Column(name = "total_items", nullable = false)
+    private int totalItems;
+
+    @Column(name = "processed_items", nullable = false)
+    private int processedItems;
+
+    @Column(name = "failed_items", nullable = false)
+    private int failedItems;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    // Геттеры и сеттеры
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(int totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public int getProcessedItems() {
+        return processedItems;
+    }
+
+    public void setProcessedItems(int processedItems) {
+        this.processedItems = processedItems;
+    }
+
+    public int getFailedItems() {
+        return failedItems;
+    }
+
+    public void setFailedItems(int failedItems) {
+        this.failedItems = failedItems;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ANONIMUS.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "bulk_job_items", indexes = {
+        @Index(name = "ux_bulk_job_items_job_position", columnList = "job_id, item_position", unique = true)
+})
+public class BulkJobItem {
+    // Задание на 50k элементов сохраняется пачками, поэтому последовательность, а не IDENTITY
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_job_items_seq")
+    @SequenceGenerator(name = "bulk_job_items_seq", sequenceName = "bulk_job_items_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "item_position", nullable = false)
+    private int position;
+
+    @Column(length = 1000)
+    private String text;
+
+    @Column(length = 50)
+    private String username;
+
+    @Column(nullable = false)
+    private boolean processed;
+
+    @Column(name = "qr_id")
+    private Long qrId;
+
+    @Column(length = 500)
+    private String error;
+
+    // Геттеры и сеттеры
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public boolean isProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(boolean processed) {
+        this.processed = processed;
+    }
+
+    public Long getQrId() {
+        return qrId;
+    }
+
+    public void setQrId(Long qrId) {
+        this.qrId = qrId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
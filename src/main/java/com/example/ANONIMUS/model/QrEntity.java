@@ -1,21 +1,30 @@
 package com.example.ANONIMUS.model;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "qr_codes")
+@Table(name = "qr_codes", indexes = {
+        @Index(name = "ux_qr_codes_content_hash", columnList = "content_hash", unique = true)
+})
 public class QrEntity {
+    // Последовательность с шагом 50 вместо IDENTITY: Hibernate может пачкой вставлять строки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "qr_codes_seq")
+    @SequenceGenerator(name = "qr_codes_seq", sequenceName = "qr_codes_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 1000)
     private String content;
 
-    @Column(name = "qr_code_base64", nullable = false, columnDefinition = "TEXT")
-    private String qrCodeBase64;
+    // SHA-256 от content: одинаковый текст рендерится и хранится один раз
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
 
     @ManyToMany(mappedBy = "qrCodes", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private Set<User> users = new HashSet<>();
@@ -37,12 +46,27 @@ public class QrEntity {
         this.content = content;
     }
 
-    public String getQrCodeBase64() {
-        return qrCodeBase64;
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
     }
 
-    public void setQrCodeBase64(String qrCodeBase64) {
-        this.qrCodeBase64 = qrCodeBase64;
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
     }
 
     public Set<User> getUsers() {
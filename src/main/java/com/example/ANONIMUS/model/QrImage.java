@@ -0,0 +1,61 @@
+package com.example.ANONIMUS.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+// PNG хранится отдельно от qr_codes, чтобы списки QR не тянули бинарные данные
+@Entity
+@Table(name = "qr_images")
+public class QrImage implements Persistable<Long> {
+    @Id
+    @Column(name = "qr_id")
+    private Long qrId;
+
+    @Column(name = "data", nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+
+    // Id назначается вручную, без этого save() делал бы merge с лишним SELECT на каждую картинку
+    @Transient
+    private boolean isNew = true;
+
+    public QrImage() {
+    }
+
+    public QrImage(Long qrId, byte[] data) {
+        this.qrId = qrId;
+        this.data = data;
+    }
+
+    // Геттеры и сеттеры
+    public Long getQrId() {
+        return qrId;
+    }
+
+    public void setQrId(Long qrId) {
+        this.qrId = qrId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public Long getId() {
+        return qrId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ANONIMUS.repository;
+
+import com.example.ANONIMUS.model.BulkJobItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BulkJobItemRepository extends JpaRepository<BulkJobItem, Long> {
+    List<BulkJobItem> findByJobIdAndProcessedFalseOrderByPositionAsc(Long jobId, Limit limit);
+
+    List<BulkJobItem> findByJobIdOrderByPositionAsc(Long jobId, Pageable pageable);
+}
@@ -0,0 +1,13 @@
+package com.example.ANONIMUS.repository;
+
+import com.example.ANONIMUS.model.BulkJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+    List<BulkJob> findByStatusInOrderByIdAsc(Collection<BulkJob.Status> statuses);
+}
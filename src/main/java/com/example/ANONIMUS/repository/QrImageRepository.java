@@ -0,0 +1,17 @@
+package com.example.ANONIMUS.repository;
+
+import com.example.ANONIMUS.model.QrImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QrImageRepository extends JpaRepository<QrImage, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO qr_images (qr_id, data) VALUES (:qrId, :data) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("qrId") Long qrId, @Param("data") byte[] data);
+}
@@ -1,14 +1,25 @@
 package com.example.ANONIMUS.repository;
 
+import com.example.ANONIMUS.dto.QrSnapshot;
 import com.example.ANONIMUS.model.QrEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 @Repository
 public interface QrRepository extends JpaRepository<QrEntity, Long> {
 
-    @Query("SELECT q FROM QrEntity q JOIN q.users u WHERE u.username = :username")
-    List<QrEntity> findByUsername(@Param("username") String username);
+    // Keyset-страница по id через user_qr: без картинок и без загрузки сущностей
+    @Query("SELECT new com.example.ANONIMUS.dto.QrSnapshot(q.id, q.content, q.contentHash, q.createdAt) " +
+            "FROM User u JOIN u.qrCodes q WHERE u.username = :username AND q.id > :after ORDER BY q.id")
+    List<QrSnapshot> findPageByUsername(@Param("username") String username, @Param("after") long after,
+                                        Limit limit);
+
+    Optional<QrEntity> findByContentHash(String contentHash);
+
+    List<QrEntity> findByContentHashIn(Collection<String> contentHashes);
 }
\ No newline at end of file
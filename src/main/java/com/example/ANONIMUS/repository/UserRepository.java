@@ -1,11 +1,23 @@
 package com.example.ANONIMUS.repository;
 
+import com.example.ANONIMUS.dto.UserSnapshot;
 import com.example.ANONIMUS.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    @Query("SELECT new com.example.ANONIMUS.dto.UserSnapshot(u.id, u.username) " +
+            "FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<UserSnapshot> findPageAfter(@Param("after") long after, Limit limit);
 }
\ No newline at end of file
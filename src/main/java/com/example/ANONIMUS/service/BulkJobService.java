@@ -0,0 +1,275 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkJobStatusResponse;
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.model.BulkJob;
+import com.example.ANONIMUS.model.BulkJobItem;
+import com.example.ANONIMUS.repository.BulkJobItemRepository;
+import com.example.ANONIMUS.repository.BulkJobRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class BulkJobService {
+    // Длина колонок error в bulk_jobs и bulk_job_items
+    static final int MAX_ERROR_LENGTH = 500;
+
+    private final BulkJobRepository jobRepository;
+    private final BulkJobItemRepository itemRepository;
+    private final QrService qrService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int workers;
+    private final int chunkSize;
+    private final ThreadFactory threadFactory;
+
+    // Очередь хранит только id заданий, сами элементы лежат в БД.
+    // Число мест ограничено семафором: задание занимает место, пока его не взял воркер
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final Semaphore queueSlots;
+    private ExecutorService workerPool;
+    // Выставляется до shutdownNow: ошибки, вызванные остановкой, не должны помечать задание FAILED
+    private volatile boolean stopping;
+
+    public BulkJobService(BulkJobRepository jobRepository, BulkJobItemRepository itemRepository,
+                          QrService qrService, TransactionTemplate transactionTemplate, EntityManager entityManager,
+                          @Value("${app.qr.jobs.queue-capacity:100}") int queueCapacity,
+                          @Value("${app.qr.jobs.workers:2}") int workers,
+                          @Value("${app.qr.jobs.chunk-size:200}") int chunkSize,
+                          @Qualifier("qrJobThreadFactory") ThreadFactory threadFactory) {
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.qrService = qrService;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.queueSlots = new Semaphore(queueCapacity);
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+        this.threadFactory = threadFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // В режиме виртуальных потоков фабрика отдаёт виртуальные, число воркеров то же
+        workerPool = Executors.newFixedThreadPool(workers + 1, threadFactory);
+        List<Long> pending = transactionTemplate.execute(status -> recoverPendingJobs());
+        // Отдельный поток возвращает незавершённые задания в очередь по мере освобождения мест
+        workerPool.submit(() -> requeue(pending));
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::workLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    // Пустой Optional — очередь заполнена, задание не принято
+    public Optional<BulkJobStatusResponse> submit(List<QrGenerationRequest> requests) {
+        for (QrGenerationRequest request : requests) {
+            if (length(request.getText()) > QrService.MAX_TEXT_LENGTH
+                    || length(request.getUsername()) > QrService.MAX_USERNAME_LENGTH) {
+                throw new IllegalArgumentException("Text must be at most " + QrService.MAX_TEXT_LENGTH
+                        + " characters and username at most " + QrService.MAX_USERNAME_LENGTH);
+            }
+        }
+        if (!queueSlots.tryAcquire()) {
+            return Optional.empty();
+        }
+        BulkJob job;
+        try {
+            job = transactionTemplate.execute(status -> createJob(requests));
+        } catch (RuntimeException e) {
+            queueSlots.release();
+            throw e;
+        }
+        queue.add(job.getId());
+        return Optional.of(BulkJobStatusResponse.from(job));
+    }
+
+    public Optional<BulkJobStatusResponse> getJob(Long id) {
+        return jobRepository.findById(id).map(BulkJobStatusResponse::from);
+    }
+
+    public List<BulkQrResult> getResults(Long jobId, int page, int size) {
+        // Картинки не возвращаются, только id и ссылка на /api/qr/{id}/image
+        return itemRepository.findByJobIdOrderByPositionAsc(jobId, PageRequest.of(page, size)).stream()
+                .map(item -> item.getQrId() != null
+                        ? BulkQrResult.success(item.getText(), item.getUsername(), item.getQrId(), null)
+                        : BulkQrResult.failure(item.getText(), item.getUsername(), item.getError()))
+                .collect(Collectors.toList());
+    }
+
+    private BulkJob createJob(List<QrGenerationRequest> requests) {
+        BulkJob job = new BulkJob();
+        job.setTotalItems(requests.size());
+        job.setCreatedAt(Instant.now());
+        job = jobRepository.save(job);
+
+        for (int i = 0; i < requests.size(); i++) {
+            BulkJobItem item = new BulkJobItem();
+            item.setJobId(job.getId());
+            item.setPosition(i);
+            item.setText(requests.get(i).getText());
+            item.setUsername(requests.get(i).getUsername());
+            entityManager.persist(item);
+            // Не копим десятки тысяч сущностей в контексте: вставляем пачками и отпускаем
+            if ((i + 1) % chunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return job;
+    }
+
+    private List<Long> recoverPendingJobs() {
+        List<BulkJob> pending = jobRepository.findByStatusInOrderByIdAsc(
+                List.of(BulkJob.Status.QUEUED, BulkJob.Status.RUNNING));
+        // Задание, прерванное рестартом, продолжится с первого необработанного элемента
+        pending.forEach(job -> job.setStatus(BulkJob.Status.QUEUED));
+        return pending.stream().map(BulkJob::getId).collect(Collectors.toList());
+    }
+
+    private void requeue(List<Long> jobIds) {
+        try {
+            for (Long jobId : jobIds) {
+                queueSlots.acquire();
+                queue.add(jobId);
+            }
+            if (!jobIds.isEmpty()) {
+                log.info("Re-queued {} unfinished bulk jobs", jobIds.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void workLoop() {
+        while (!stopping && !Thread.currentThread().isInterrupted()) {
+            Long jobId;
+            try {
+                jobId = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queueSlots.release();
+            // Воркер не должен умирать от ошибки задания: пул потоков фиксированный и сам не восстановится
+            try {
+                process(jobId);
+            } catch (Throwable e) {
+                if (stopping || Thread.currentThread().isInterrupted()) {
+                    // Прерванное получение соединения, закрытый пул и т.п.: задание остаётся RUNNING
+                    // и продолжится после рестарта через recoverPendingJobs
+                    log.info("Bulk job {} interrupted by shutdown: {}", jobId, e.toString());
+                    return;
+                }
+                log.error("Bulk job {} failed", jobId, e);
+                markFailed(jobId, e);
+            }
+        }
+    }
+
+    private void markFailed(Long jobId, Throwable cause) {
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        try {
+            updateJob(jobId, job -> {
+                job.setStatus(BulkJob.Status.FAILED);
+                job.setError(truncate(message));
+                job.setFinishedAt(Instant.now());
+            });
+        } catch (Throwable e) {
+            // Задание останется RUNNING и продолжится после рестарта через recoverPendingJobs
+            log.error("Could not mark bulk job {} as failed", jobId, e);
+        }
+    }
+
+    private void process(Long jobId) {
+        updateJob(jobId, job -> {
+            job.setStatus(BulkJob.Status.RUNNING);
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(Instant.now());
+            }
+        });
+        List<BulkJobItem> items;
+        while (!(items = itemRepository.findByJobIdAndProcessedFalseOrderByPositionAsc(
+                jobId, Limit.of(chunkSize))).isEmpty()) {
+            // Остановка между чанками: обработанное уже записано, остальное подхватит следующий запуск
+            if (stopping || Thread.currentThread().isInterrupted()) {
+                log.info("Bulk job {} paused by shutdown", jobId);
+                return;
+            }
+            List<QrGenerationRequest> requests = items.stream()
+                    .map(item -> new QrGenerationRequest(item.getText(), item.getUsername()))
+                    .collect(Collectors.toList());
+            // Повторная обработка после падения безопасна: QR дедуплицируются, связи вставляются idempotent
+            List<BulkQrResult> results = qrService.generateBulkQrCodes(requests);
+            List<Long> itemIds = items.stream().map(BulkJobItem::getId).collect(Collectors.toList());
+            transactionTemplate.executeWithoutResult(status -> recordResults(jobId, itemIds, results));
+        }
+        updateJob(jobId, job -> {
+            job.setStatus(BulkJob.Status.COMPLETED);
+            job.setFinishedAt(Instant.now());
+        });
+    }
+
+    private void recordResults(Long jobId, List<Long> itemIds, List<BulkQrResult> results) {
+        Map<Long, BulkJobItem> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(BulkJobItem::getId, Function.identity()));
+        int failed = 0;
+        for (int i = 0; i < itemIds.size(); i++) {
+            BulkJobItem item = items.get(itemIds.get(i));
+            BulkQrResult result = results.get(i);
+            item.setProcessed(true);
+            item.setQrId(result.getQrId());
+            item.setError(truncate(result.getError()));
+            if (result.getError() != null) {
+                failed++;
+            }
+        }
+        BulkJob job = jobRepository.findById(jobId).orElseThrow();
+        job.setProcessedItems(job.getProcessedItems() + itemIds.size());
+        job.setFailedItems(job.getFailedItems() + failed);
+    }
+
+    private void updateJob(Long jobId, Consumer<BulkJob> change) {
+        transactionTemplate.executeWithoutResult(status -> jobRepository.findById(jobId).ifPresent(change));
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
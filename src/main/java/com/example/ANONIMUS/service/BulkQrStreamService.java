@@ -0,0 +1,78 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+public class BulkQrStreamService {
+    private final QrService qrService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public BulkQrStreamService(QrService qrService, ObjectMapper objectMapper,
+                               @Value("${app.qr.bulk.stream-chunk-size:100}") int chunkSize) {
+        this.qrService = qrService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    // Вход читается построчно, в памяти только один чанк запросов и результатов.
+    // Запись в сокет блокирует, пока клиент не заберёт данные, и следующий чанк не читается
+    public void generate(InputStream input, OutputStream output) throws IOException {
+        List<QrGenerationRequest> chunk = new ArrayList<>(chunkSize);
+        boolean malformed = false;
+        try (MappingIterator<QrGenerationRequest> requests =
+                     objectMapper.readerFor(QrGenerationRequest.class).readValues(input)) {
+            QrGenerationRequest request;
+            while ((request = nextRequest(requests)) != null) {
+                chunk.add(request);
+                if (chunk.size() == chunkSize) {
+                    writeResults(qrService.generateBulkQrCodes(chunk), output);
+                    chunk.clear();
+                }
+            }
+        } catch (MalformedLineException e) {
+            malformed = true;
+        }
+        if (!chunk.isEmpty()) {
+            writeResults(qrService.generateBulkQrCodes(chunk), output);
+        }
+        if (malformed) {
+            // Битая строка: отдаём то, что уже прочитали, и сообщаем об ошибке последней строкой
+            writeResults(List.of(BulkQrResult.failure(null, null, "Malformed NDJSON input")), output);
+        }
+    }
+
+    private QrGenerationRequest nextRequest(MappingIterator<QrGenerationRequest> requests) {
+        try {
+            return requests.hasNextValue() ? requests.nextValue() : null;
+        } catch (IOException | RuntimeJsonMappingException e) {
+            log.warn("Stopping NDJSON bulk stream: {}", e.getMessage());
+            throw new MalformedLineException();
+        }
+    }
+
+    private void writeResults(List<BulkQrResult> results, OutputStream output) throws IOException {
+        for (BulkQrResult result : results) {
+            output.write(objectMapper.writeValueAsBytes(result));
+            output.write('\n');
+        }
+        output.flush();
+    }
+
+    private static class MalformedLineException extends RuntimeException {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ANONIMUS.service;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Лог-линейная гистограмма задержек в микросекундах: 16 корзин на каждую степень двойки, погрешность
+// квантиля не больше ~6%. Запись без блокировок: корзины — LongAdder, создаются при первом попадании
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 мкс — больше 12 дней, всё что длиннее попадает в последнюю корзину
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    void record(long micros) {
+        int index = indexOf(micros);
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            buckets.compareAndSet(index, null, new LongAdder());
+            bucket = buckets.get(index);
+        }
+        bucket.increment();
+        count.increment();
+        max.accumulate(micros);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Верхняя граница корзины, в которую попал квантиль q; не больше фактического максимума
+    long percentile(double q) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            LongAdder bucket = buckets.get(i);
+            if (bucket != null) {
+                counts[i] = bucket.sum();
+                total += counts[i];
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.cache.BytesLease;
+import com.example.ANONIMUS.cache.CacheService;
+import com.example.ANONIMUS.dao.QrDao;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.example.ANONIMUS.util.HashUtils;
+import com.google.zxing.common.BitMatrix;
+import org.springframework.stereotype.Service;
+
+// Кэш отрисовки по (содержимое, параметры). Матрица модулей кэшируется отдельно от картинок:
+// тот же текст в другом размере или формате не кодируется заново, только масштабируется
+@Service
+public class QrRenderService {
+    private static final String MATRIX_CACHE_PREFIX = "qr_matrix_";
+    private static final String RENDER_CACHE_PREFIX = "qr_render_";
+
+    private final QrDao qrDao;
+    private final CacheService cacheService;
+
+    public QrRenderService(QrDao qrDao, CacheService cacheService) {
+        this.qrDao = qrDao;
+        this.cacheService = cacheService;
+    }
+
+    public byte[] render(String content, String contentHash, QrRenderOptions options, QrImageFormat format) {
+        String hash = keyHash(content, contentHash);
+        return cacheService.getOrLoad(renderKey(hash, options, format), byte[].class, () ->
+                qrDao.rasterize(modules(content, hash, options.getErrorCorrection()), format, options));
+    }
+
+    // Готовая картинка отдаётся прямо из off-heap кэша; при промахе рисуется и кладётся туда
+    public BytesLease open(String content, String contentHash, QrRenderOptions options, QrImageFormat format) {
+        BytesLease cached = cacheService.lease(renderKey(keyHash(content, contentHash), options, format));
+        return cached != null ? cached : BytesLease.of(render(content, contentHash, options, format));
+    }
+
+    // У строк, созданных до появления content_hash, хэша может не быть (дубликаты не дозаполняются миграцией):
+    // считаем его от содержимого, иначе все такие QR делили бы один ключ кэша
+    private static String keyHash(String content, String contentHash) {
+        return contentHash != null ? contentHash : HashUtils.sha256Hex(content);
+    }
+
+    private static String renderKey(String contentHash, QrRenderOptions options, QrImageFormat format) {
+        // Матрица модулей не зависит от размера и рамки
+        return RENDER_CACHE_PREFIX + format.name() + "_"
+                + (format == QrImageFormat.MODULES ? options.getErrorCorrection() : options.cacheKey())
+                + "_" + contentHash;
+    }
+
+    private BitMatrix modules(String content, String contentHash, String errorCorrection) {
+        String matrixKey = MATRIX_CACHE_PREFIX + errorCorrection + "_" + contentHash;
+        return cacheService.getOrLoad(matrixKey, BitMatrix.class, () -> qrDao.encodeModules(content, errorCorrection));
+    }
+}
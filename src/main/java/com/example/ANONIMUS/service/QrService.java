@@ -1,21 +1,53 @@
 package com.example.ANONIMUS.service;
 
 import com.example.ANONIMUS.dao.QrDao;
+import com.example.ANONIMUS.dao.QrCodeDao;
+import com.example.ANONIMUS.dao.UserQrLinkDao;
 import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.CursorPage;
 import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
 import com.example.ANONIMUS.model.QrEntity;
-import com.example.ANONIMUS.dto.QrResponse;
 import com.example.ANONIMUS.model.User;
+import com.example.ANONIMUS.dto.QrResponse;
+import com.example.ANONIMUS.dto.QrSnapshot;
+import com.example.ANONIMUS.dto.QrSummaryResponse;
 import com.example.ANONIMUS.repository.QrRepository;
 import com.example.ANONIMUS.repository.UserRepository;
+import com.example.ANONIMUS.storage.ImageStorage;
+import com.example.ANONIMUS.util.HashUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.util.Base64;
+import com.example.ANONIMUS.cache.BytesLease;
 import com.example.ANONIMUS.cache.CacheService;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,102 +56,425 @@ import java.util.stream.Collectors;
 public class QrService {
     private static final String QR_CACHE_PREFIX = "qr_";
     private static final String QR_USER_CACHE_PREFIX = "qr_user_";
+    private static final String QR_IMAGE_CACHE_PREFIX = "qr_image_";
+    // Длины колонок qr_codes.content и users.username
+    static final int MAX_TEXT_LENGTH = 1000;
+    static final int MAX_USERNAME_LENGTH = 50;
+    private static final int MAX_BULK_ATTEMPTS = 3;
 
 
     private final QrDao qrDao;
+    private final QrRenderService qrRenderService;
     private final QrRepository qrRepository;
+    private final ImageStorage imageStorage;
     private final UserRepository userRepository;
     private final CacheService cacheService;
-
-    public QrService(QrDao qrDao, QrRepository qrRepository,
-                     UserRepository userRepository, CacheService cacheService) {
+    private final UserQrLinkDao userQrLinkDao;
+    private final QrCodeDao qrCodeDao;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor renderExecutor;
+    private final Timer base64Timer;
+    private final Timer bulkPersistTimer;
+    private final DistributionSummary bulkBatchSize;
+
+    public QrService(QrDao qrDao, QrRenderService qrRenderService, QrRepository qrRepository, ImageStorage imageStorage,
+                     UserRepository userRepository, CacheService cacheService, UserQrLinkDao userQrLinkDao, QrCodeDao qrCodeDao,
+                     UserService userService,
+                     TransactionTemplate transactionTemplate,
+                     @Qualifier("qrRenderExecutor") Executor renderExecutor, MeterRegistry meterRegistry) {
         this.qrDao = qrDao;
+        this.qrRenderService = qrRenderService;
         this.qrRepository = qrRepository;
+        this.imageStorage = imageStorage;
         this.userRepository = userRepository;
         this.cacheService = cacheService;
+        this.userQrLinkDao = userQrLinkDao;
+        this.qrCodeDao = qrCodeDao;
+        this.userService = userService;
+        this.transactionTemplate = transactionTemplate;
+        this.renderExecutor = renderExecutor;
+        this.base64Timer = Timer.builder("qr.base64.encode")
+                .description("Base64 encoding of PNG images in JSON responses")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.bulkPersistTimer = Timer.builder("qr.bulk.persist")
+                .description("Transaction that stores one bulk batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // И синхронный /bulk, и фоновые задания идут через generateBulkQrCodes
+        this.bulkBatchSize = DistributionSummary.builder("qr.bulk.batch.size")
+                .description("Items per bulk generation batch")
+                .baseUnit("items")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
 
-    public QrResponse generateAndSaveQrCode(String text, String username) {
+    // Пользователь создаётся в своей короткой транзакции до сохранения QR
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public QrResponse generateAndSaveQrCode(String text, String username, QrRenderOptions options) {
         if (text == null || text.trim().isEmpty() || username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Text and username must not be empty");
         }
-        User user = findOrCreateUser(username);
-        QrEntity qrEntity = createAndSaveQrEntity(text, user);
-        return new QrResponse(qrEntity.getQrCodeBase64());
+        long userId = userService.getOrCreateUserId(username);
+        QrEntity qrEntity = saveQrEntity(text, userId, username, true);
+        byte[] image = renderQr(qrEntity, QrImageFormat.PNG, options);
+        return new QrResponse(qrEntity.getId(), toBase64(image));
     }
 
 
+    // Для SVG и матрицы модулей PNG не нужен: сохраняем только запись и связь, картинку
+    // отрисуем при первом запросе /image
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public QrEntity registerQrCode(String text, String username) {
+        if (text == null || text.trim().isEmpty() || username == null || username.trim().isEmpty()) {
+            throw new IllegalArgumentException("Text and username must not be empty");
+        }
+        long userId = userService.getOrCreateUserId(username);
+        return saveQrEntity(text, userId, username, false);
+    }
+
+    // В qr_images лежит только PNG с параметрами по умолчанию, остальное — через кэш отрисовки
+    public byte[] renderQr(QrEntity qrEntity, QrImageFormat format, QrRenderOptions options) {
+        if (format == QrImageFormat.PNG && options.isDefault()) {
+            return getQrImage(qrEntity.getId())
+                    .orElseThrow(() -> new RuntimeException("QR image not found with id: " + qrEntity.getId()));
+        }
+        return qrRenderService.render(qrEntity.getContent(), qrEntity.getContentHash(), options, format);
+    }
+
+    // Без общей транзакции: рендер идёт параллельно и не держит соединение с БД
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public List<BulkQrResult> generateBulkQrCodes(List<QrGenerationRequest> requests) {
         if (requests == null || requests.isEmpty()) {
             return Collections.emptyList();
         }
+        bulkBatchSize.record(requests.size());
+
+        String[] hashes = new String[requests.size()];
+        QrRenderOptions[] options = new QrRenderOptions[requests.size()];
+        String[] rejections = new String[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            QrGenerationRequest request = requests.get(i);
+            if (!isValid(request)) {
+                rejections[i] = "Invalid input text or username";
+                continue;
+            }
+            if (request.getUsername().length() > MAX_USERNAME_LENGTH) {
+                rejections[i] = "Username must be at most " + MAX_USERNAME_LENGTH + " characters";
+                continue;
+            }
+            try {
+                options[i] = QrRenderOptions.of(request);
+            } catch (IllegalArgumentException e) {
+                rejections[i] = e.getMessage();
+                continue;
+            }
+            hashes[i] = HashUtils.sha256Hex(request.getText());
+        }
 
+        // Один запрос на все уже сохранённые тексты вместо поиска по каждому элементу
+        Map<String, QrEntity> knownByHash = findExistingByHash(Arrays.asList(hashes));
 
-        return requests.stream()
-                .map(request -> {
-                    try {
+        // Новые тексты рендерятся в пуле, каждый уникальный текст ровно один раз
+        Map<String, CompletableFuture<byte[]>> renders = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String text = requests.get(i).getText();
+            if (hashes[i] != null && !knownByHash.containsKey(hashes[i])) {
+                renders.computeIfAbsent(hashes[i],
+                        hash -> CompletableFuture.supplyAsync(() -> qrDao.generateQrCode(text), renderExecutor));
+            }
+        }
+        // Нестандартные размеры/уровни коррекции не сохраняются, а отрисовываются через кэш
+        Map<String, CompletableFuture<byte[]>> customRenders = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (hashes[i] != null && !options[i].isDefault()) {
+                String text = requests.get(i).getText();
+                String hash = hashes[i];
+                QrRenderOptions itemOptions = options[i];
+                customRenders.computeIfAbsent(itemOptions.cacheKey() + "_" + hash, key -> CompletableFuture.supplyAsync(
+                        () -> qrRenderService.render(text, hash, itemOptions, QrImageFormat.PNG), renderExecutor));
+            }
+        }
 
-                        if (request.getText() == null || request.getText().trim().isEmpty() ||
-                                request.getUsername() == null || request.getUsername().trim().isEmpty()) {
-                            return BulkQrResult.failure(request.getText(), request.getUsername(), "Invalid input text or username");
-                        }
+        // Сохранение последовательно в одной транзакции, по мере готовности картинок
+        List<QrEntity> resolved = new ArrayList<>(requests.size());
+        List<String> errors = new ArrayList<>(requests.size());
+        bulkPersistTimer.record(() -> persistBulkWithRetry(requests, hashes, rejections, knownByHash, renders,
+                resolved, errors));
+
+        Map<Long, byte[]> images = loadImages(resolved);
+        List<BulkQrResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            QrGenerationRequest request = requests.get(i);
+            QrEntity qrEntity = resolved.get(i);
+            byte[] image = null;
+            String error = errors.get(i);
+            if (qrEntity != null && options[i].isDefault()) {
+                image = images.get(qrEntity.getId());
+            } else if (qrEntity != null) {
+                try {
+                    image = customRenders.get(options[i].cacheKey() + "_" + hashes[i]).join();
+                } catch (CompletionException e) {
+                    error = "Processing failed: " + e.getCause().getMessage();
+                }
+            }
+            if (image == null) {
+                error = error != null ? error : "Processing failed: image not found";
+                results.add(BulkQrResult.failure(request.getText(), request.getUsername(), error));
+            } else {
+                results.add(BulkQrResult.success(request.getText(), request.getUsername(), qrEntity.getId(),
+                        toBase64(image)));
+            }
+        }
+        return results;
+    }
 
-                        User user = findOrCreateUser(request.getUsername());
-                        QrEntity qrEntity = createAndSaveQrEntity(request.getText(), user);
+    // Гонку за одинаковые новые тексты снимает ON CONFLICT в QrCodeDao. Повтор остаётся только для
+    // взаимных блокировок и таймаутов блокировок: пачка целиком откатывается и выполняется заново
+    private void persistBulkWithRetry(List<QrGenerationRequest> requests, String[] hashes, String[] rejections,
+                                      Map<String, QrEntity> knownByHash, Map<String, CompletableFuture<byte[]>> renders,
+                                      List<QrEntity> resolved, List<String> errors) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Map<String, QrEntity> known = new HashMap<>(knownByHash);
+                transactionTemplate.executeWithoutResult(status ->
+                        persistBulk(requests, hashes, rejections, known, renders, resolved, errors));
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_BULK_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Bulk persist attempt {} failed on a lock conflict, retrying: {}", attempt, e.getMessage());
+                resolved.clear();
+                errors.clear();
+            }
+        }
+    }
 
-                        cacheService.evict(QR_USER_CACHE_PREFIX + user.getUsername());
-                        return BulkQrResult.success(request.getText(), request.getUsername(), qrEntity.getQrCodeBase64());
-                    } catch (Exception e) {
+    private void persistBulk(List<QrGenerationRequest> requests, String[] hashes, String[] rejections,
+                             Map<String, QrEntity> knownByHash, Map<String, CompletableFuture<byte[]>> renders,
+                             List<QrEntity> resolved, List<String> errors) {
+        // Перечитываем в текущей сессии: найденные до транзакции сущности detached,
+        // а пока шёл рендер, те же тексты мог сохранить параллельный запрос
+        knownByHash.putAll(findExistingByHash(Arrays.asList(hashes)));
+        Map<String, String> renderErrors = insertNewQrCodes(requests, hashes, knownByHash, renders);
+
+        Set<String> requestedUsernames = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (hashes[i] != null) {
+                requestedUsernames.add(requests.get(i).getUsername());
+            }
+        }
+        Map<String, Long> userIds = userService.resolveUserIds(requestedUsernames);
+
+        Set<UserQrLinkDao.Link> links = new LinkedHashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            QrGenerationRequest request = requests.get(i);
+            QrEntity qrEntity = hashes[i] == null ? null : knownByHash.get(hashes[i]);
+            if (qrEntity == null) {
+                resolved.add(null);
+                errors.add(hashes[i] == null ? rejections[i] : renderErrors.get(hashes[i]));
+                continue;
+            }
+            links.add(new UserQrLinkDao.Link(userIds.get(request.getUsername()), qrEntity.getId()));
+            usernames.add(request.getUsername());
+            resolved.add(qrEntity);
+            errors.add(null);
+        }
+        linkToUsers(links, usernames);
+    }
 
-                        return BulkQrResult.failure(request.getText(), request.getUsername(), "Processing failed: " + e.getMessage());
-                    }
-                })
-                .collect(Collectors.toList());
+    // Новые тексты вставляются одной пачкой и перечитываются по хэшу. Картинку сохраняем только для строк,
+    // которые вставили сами: у строки параллельного запроса она сохраняется в его транзакции.
+    // Возвращает ошибки рендера по хэшу — такие тексты не сохраняются
+    private Map<String, String> insertNewQrCodes(List<QrGenerationRequest> requests, String[] hashes,
+                                                 Map<String, QrEntity> knownByHash,
+                                                 Map<String, CompletableFuture<byte[]>> renders) {
+        Map<String, String> contentByHash = new HashMap<>();
+        Map<String, byte[]> images = new HashMap<>();
+        Map<String, String> renderErrors = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String hash = hashes[i];
+            if (hash == null || knownByHash.containsKey(hash) || contentByHash.containsKey(hash)
+                    || renderErrors.containsKey(hash)) {
+                continue;
+            }
+            try {
+                images.put(hash, renders.get(hash).join());
+                contentByHash.put(hash, requests.get(i).getText());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                renderErrors.put(hash, "Processing failed: " + cause.getMessage());
+            }
+        }
+        if (contentByHash.isEmpty()) {
+            return renderErrors;
+        }
+        Map<String, Long> assignedIds = qrCodeDao.insertMissing(contentByHash);
+        Map<String, QrEntity> inserted = findExistingByHash(contentByHash.keySet());
+        inserted.forEach((hash, qrEntity) -> {
+            if (qrEntity.getId().equals(assignedIds.get(hash))) {
+                saveImage(qrEntity.getId(), images.get(hash));
+            }
+        });
+        knownByHash.putAll(inserted);
+        return renderErrors;
+    }
 
+    private static boolean isValid(QrGenerationRequest request) {
+        return request.getText() != null && !request.getText().trim().isEmpty() &&
+                request.getUsername() != null && !request.getUsername().trim().isEmpty();
     }
 
+    private Map<String, QrEntity> findExistingByHash(Collection<String> hashes) {
+        Set<String> distinct = hashes.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, QrEntity> knownByHash = new HashMap<>();
+        if (!distinct.isEmpty()) {
+            qrRepository.findByContentHashIn(distinct)
+                    .forEach(qr -> knownByHash.put(qr.getContentHash(), qr));
+        }
+        return knownByHash;
+    }
 
-    private User findOrCreateUser(String username) {
-        return userRepository.findByUsername(username)
-                .orElseGet(() -> {
-                    User newUser = new User();
-                    newUser.setUsername(username);
+    private Map<Long, byte[]> loadImages(List<QrEntity> entities) {
+        Map<Long, byte[]> images = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (QrEntity qrEntity : entities) {
+            if (qrEntity == null || images.containsKey(qrEntity.getId())) {
+                continue;
+            }
+            byte[] cached = cacheService.get(QR_IMAGE_CACHE_PREFIX + qrEntity.getId(), byte[].class);
+            if (cached != null) {
+                images.put(qrEntity.getId(), cached);
+            } else {
+                missing.add(qrEntity.getId());
+            }
+        }
+        // Недостающие картинки (ранее сохранённые QR) забираем одним запросом
+        if (!missing.isEmpty()) {
+            imageStorage.findAll(missing).forEach((qrId, png) -> {
+                images.put(qrId, png);
+                cacheService.put(QR_IMAGE_CACHE_PREFIX + qrId, png);
+            });
+        }
+        // QR, созданные через SVG/матрицу, ещё без PNG — дорисовываем
+        for (QrEntity qrEntity : entities) {
+            if (qrEntity != null && !images.containsKey(qrEntity.getId())) {
+                images.put(qrEntity.getId(), backfillImage(qrEntity.getId(), qrEntity.getContent()));
+            }
+        }
+        return images;
+    }
+
+
+    // Тот же новый текст мог сохранить параллельный запрос между поиском по хэшу и вставкой.
+    // Транзакция откатывается на уникальном индексе, повторная попытка находит готовую запись
+    private QrEntity saveQrEntity(String text, long userId, String username, boolean withPng) {
+        try {
+            return transactionTemplate.execute(status -> createAndSaveQrEntity(text, userId, username, withPng));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent insert of the same QR content, retrying lookup");
+            return transactionTemplate.execute(status -> createAndSaveQrEntity(text, userId, username, withPng));
+        }
+    }
+
+    private QrEntity createAndSaveQrEntity(String text, long userId, String username, boolean withPng) {
+        String contentHash = HashUtils.sha256Hex(text);
+        QrEntity qrEntity = qrRepository.findByContentHash(contentHash)
+                .orElseGet(() -> withPng ? renderAndSave(text, contentHash) : saveContent(text, contentHash));
+        linkToUsers(List.of(new UserQrLinkDao.Link(userId, qrEntity.getId())), List.of(username));
+        return qrEntity;
+    }
+
+    private QrEntity renderAndSave(String text, String contentHash) {
+        return saveRendered(text, contentHash, qrDao.generateQrCode(text));
+    }
 
-                    return userRepository.save(newUser);
-                });
+    private QrEntity saveRendered(String text, String contentHash, byte[] png) {
+        QrEntity qrEntity = saveContent(text, contentHash);
+        saveImage(qrEntity.getId(), png);
+        return qrEntity;
     }
 
-    private QrEntity createAndSaveQrEntity(String text, User user) {
+    private QrEntity saveContent(String text, String contentHash) {
         QrEntity qrEntity = new QrEntity();
         qrEntity.setContent(text);
-        byte[] qrCodeBytes = qrDao.generateQrCode(text);
-        qrEntity.setQrCodeBase64(Base64.getEncoder().encodeToString(qrCodeBytes));
-
-        qrEntity = qrRepository.save(qrEntity);
+        qrEntity.setContentHash(contentHash);
+        return qrRepository.save(qrEntity);
+    }
 
-        user.getQrCodes().add(qrEntity);
-        userRepository.save(user);
+    private void saveImage(Long qrId, byte[] png) {
+        imageStorage.save(qrId, png);
+        cacheService.putAfterCommit(QR_IMAGE_CACHE_PREFIX + qrId, png);
+    }
 
-        cacheService.evict(QR_USER_CACHE_PREFIX + user.getUsername());
+    private void linkToUsers(Collection<UserQrLinkDao.Link> links, Collection<String> usernames) {
+        // qr_codes и qr_images уходят в БД пачками до вставки связей, иначе нарушится FK
+        qrRepository.flush();
+        // ON CONFLICT DO NOTHING: повторная ссылка на уже привязанный QR ничего не меняет
+        userQrLinkDao.insertLinks(links);
 
-        return qrEntity;
+        usernames.forEach(username -> cacheService.evictAfterCommit(QR_USER_CACHE_PREFIX + username));
     }
 
 
-    public QrEntity updateQr(Long id, String newContent) {
+    // Строка с одним текстом общая для всех пользователей (дедупликация по хэшу), поэтому правка идёт
+    // copy-on-write: пользователь отвязывается от старой строки и привязывается к строке с новым текстом.
+    // На месте переписываем только строку, у которой он единственный владелец
+    public QrEntity updateQr(Long id, String username, String newContent) {
+        if (newContent == null || newContent.trim().isEmpty()) {
+            throw new IllegalArgumentException("Text must not be empty");
+        }
+        if (newContent.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Text must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
         QrEntity qr = qrRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("QR not found with id: " + id));
-        qr.setContent(newContent);
-
-        byte[] qrCodeBytes = qrDao.generateQrCode(newContent);
-        qr.setQrCodeBase64(Base64.getEncoder().encodeToString(qrCodeBytes));
+                .orElseThrow(() -> new NoSuchElementException("QR not found with id: " + id));
+        User owner = qr.getUsers().stream()
+                .filter(user -> user.getUsername().equals(username))
+                .findFirst()
+                .orElseThrow(() -> new NoSuchElementException("QR " + id + " is not linked to user: " + username));
+        String contentHash = HashUtils.sha256Hex(newContent);
+        if (contentHash.equals(qr.getContentHash())) {
+            return qr;
+        }
+        boolean soleOwner = qr.getUsers().size() == 1;
+        Optional<QrEntity> existing = qrRepository.findByContentHash(contentHash);
+        if (soleOwner && existing.isEmpty()) {
+            return rewriteQr(qr, newContent, contentHash);
+        }
 
-        QrEntity updatedQr = qrRepository.save(qr);
+        QrEntity target = existing.orElseGet(() -> renderAndSave(newContent, contentHash));
+        if (soleOwner) {
+            // Старая строка больше никому не нужна
+            linkToUsers(List.of(new UserQrLinkDao.Link(owner.getId(), target.getId())), List.of(username));
+            deleteQr(id);
+        } else {
+            userQrLinkDao.deleteLink(new UserQrLinkDao.Link(owner.getId(), id));
+            linkToUsers(List.of(new UserQrLinkDao.Link(owner.getId(), target.getId())), List.of(username));
+        }
+        return target;
+    }
 
+    private QrEntity rewriteQr(QrEntity qr, String newContent, String contentHash) {
+        Long id = qr.getId();
+        qr.setContent(newContent);
+        qr.setContentHash(contentHash);
 
-        cacheService.put(QR_CACHE_PREFIX + id, updatedQr);
+        QrEntity updatedQr = qrRepository.save(qr);
+        byte[] png = qrDao.generateQrCode(newContent);
+        imageStorage.replace(id, png);
+        // Кэш обновляется только после коммита, при откате в нём остаётся старая картинка и content
+        cacheService.putAfterCommit(QR_IMAGE_CACHE_PREFIX + id, png);
 
+        cacheService.putAfterCommit(QR_CACHE_PREFIX + id, QrSnapshot.from(updatedQr));
+        // В закэшированных страницах пользователей лежит старый content
+        updatedQr.getUsers().forEach(user -> cacheService.evictAfterCommit(QR_USER_CACHE_PREFIX + user.getUsername()));
 
         return updatedQr;
     }
@@ -132,55 +487,87 @@ public class QrService {
             qrToDelete.getUsers().forEach(user -> {
                 user.getQrCodes().remove(qrToDelete);
                 userRepository.save(user);
-                cacheService.evict(QR_USER_CACHE_PREFIX + user.getUsername());
+                cacheService.evictAfterCommit(QR_USER_CACHE_PREFIX + user.getUsername());
             });
+            imageStorage.delete(id);
             qrRepository.deleteById(id);
-            cacheService.evict(QR_CACHE_PREFIX + id);
+            cacheService.evictAfterCommit(QR_CACHE_PREFIX + id);
+            cacheService.evictAfterCommit(QR_IMAGE_CACHE_PREFIX + id);
         } else {
-            throw new RuntimeException("QR not found with id: " + id);
+            throw new NoSuchElementException("QR not found with id: " + id);
         }
 
     }
 
-    public QrEntity getQrById(Long id) {
-        String cacheKey = QR_CACHE_PREFIX + id;
-        if (cacheService.containsKey(cacheKey)) {
-            try {
-                return cacheService.get(cacheKey, QrEntity.class);
-            } catch (Exception e) {
+    public Optional<byte[]> getQrImage(Long id) {
+        return Optional.ofNullable(cacheService.getOrLoad(QR_IMAGE_CACHE_PREFIX + id, byte[].class, () ->
+                imageStorage.find(id)
+                        .or(() -> qrRepository.findById(id).map(qr -> backfillImage(qr.getId(), qr.getContent())))
+                        .orElse(null)));
+    }
 
-                cacheService.evict(cacheKey);
-            }
+    public Optional<byte[]> getQrImage(Long id, QrImageFormat format, QrRenderOptions options) {
+        if (format == QrImageFormat.PNG && options.isDefault()) {
+            return getQrImage(id);
+        }
+        return findQr(id).map(qr -> qrRenderService.render(qr.content(), qr.contentHash(), options, format));
+    }
 
+    // Для ответа клиенту: байты из off-heap кэша пишутся в ответ без копии в кучу, аренду закрывает вызывающий
+    public Optional<BytesLease> openQrImage(Long id, QrImageFormat format, QrRenderOptions options) {
+        if (format == QrImageFormat.PNG && options.isDefault()) {
+            BytesLease cached = cacheService.lease(QR_IMAGE_CACHE_PREFIX + id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            // Сегментное хранилище отдаёт PNG прямо из файла через transferTo
+            Optional<BytesLease> stored = imageStorage.open(id);
+            return stored.isPresent() ? stored : getQrImage(id).map(BytesLease::of);
         }
-        QrEntity qr = qrRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("QR not found with id: " + id));
-        cacheService.put(cacheKey, qr);
-        return qr;
+        return findQr(id).map(qr -> qrRenderService.open(qr.content(), qr.contentHash(), options, format));
     }
 
-    public List<QrEntity> getQrCodesByUsername(String username) {
-        String cacheKey = QR_USER_CACHE_PREFIX + username;
-        if (cacheService.containsKey(cacheKey)) {
-            try {
+    private byte[] backfillImage(Long id, String content) {
+        byte[] png = qrDao.generateQrCode(content);
+        // Параллельный запрос мог успеть дорисовать ту же картинку — тогда вставка просто пропускается
+        transactionTemplate.executeWithoutResult(status -> imageStorage.saveIfAbsent(id, png));
+        cacheService.put(QR_IMAGE_CACHE_PREFIX + id, png);
+        return png;
+    }
+
+    // Для ETag картинки: снимок берётся из кэша, в БД идём только при промахе
+    public Optional<String> findContentHash(Long id) {
+        return findQr(id).map(QrSnapshot::contentHash);
+    }
 
-                List<QrEntity> cachedList = cacheService.getList(cacheKey, QrEntity.class);
-                if (cachedList != null) {
-                    return cachedList;
-                } else {
+    public QrSnapshot getQrById(Long id) {
+        return findQr(id).orElseThrow(() -> new NoSuchElementException("QR not found with id: " + id));
+    }
 
-                    cacheService.evict(cacheKey);
-                }
-            } catch(ClassCastException e) {
+    // В кэше только неизменяемые снимки: сущность из кэша отвязана от сессии и делится между потоками
+    private Optional<QrSnapshot> findQr(Long id) {
+        return Optional.ofNullable(cacheService.getOrLoad(QR_CACHE_PREFIX + id, QrSnapshot.class, () ->
+                qrRepository.findById(id).map(QrSnapshot::from).orElse(null)));
+    }
 
-                cacheService.evict(cacheKey);
-            } catch (Exception e) {
+    public CursorPage<QrSummaryResponse> getQrCodesByUsername(String username, Long after, int limit) {
+        // В кэше только первая страница размера по умолчанию, остальные страницы идут в БД по индексу
+        boolean firstPage = after == null && limit == CursorPage.DEFAULT_LIMIT;
+        // Горячий ключ после вытеснения (например, bulk-вставкой) грузится одним запросом, остальные ждут его
+        CursorPage<QrSnapshot> page = firstPage
+                ? cacheService.getOrLoad(QR_USER_CACHE_PREFIX + username,
+                        () -> loadQrPage(username, null, limit))
+                : loadQrPage(username, after, limit);
+        return page.map(QrSnapshot::toSummary);
+    }
 
-                cacheService.evict(cacheKey);
-            }
-        }
-        List<QrEntity> qrCodes = qrRepository.findByUsername(username);
-        cacheService.put(cacheKey, qrCodes);
-        return qrCodes;
+    private CursorPage<QrSnapshot> loadQrPage(String username, Long after, int limit) {
+        List<QrSnapshot> rows = qrRepository.findPageByUsername(username, after == null ? 0 : after,
+                Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, QrSnapshot::id);
+    }
+
+    String toBase64(byte[] image) {
+        return base64Timer.record(() -> Base64.getEncoder().encodeToString(image));
     }
-}
\ No newline at end of file
+}
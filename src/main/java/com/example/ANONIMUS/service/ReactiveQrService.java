@@ -0,0 +1,108 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.example.ANONIMUS.dto.QrResponse;
+import com.example.ANONIMUS.model.QrEntity;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Service
+@Slf4j
+public class ReactiveQrService {
+    private final QrService qrService;
+    private final ObjectMapper objectMapper;
+    private final Scheduler renderScheduler;
+    private final Scheduler blockingScheduler;
+    private final int chunkSize;
+
+    public ReactiveQrService(QrService qrService, ObjectMapper objectMapper,
+                             @Qualifier("qrRenderScheduler") Scheduler renderScheduler,
+                             @Qualifier("qrBlockingScheduler") Scheduler blockingScheduler,
+                             @Value("${app.qr.bulk.stream-chunk-size:100}") int chunkSize) {
+        this.qrService = qrService;
+        this.objectMapper = objectMapper;
+        this.renderScheduler = renderScheduler;
+        this.blockingScheduler = blockingScheduler;
+        this.chunkSize = chunkSize;
+    }
+
+    // Запись в БД — в блокирующем пуле, отрисовка нестандартного размера — в CPU-пуле.
+    // Поток запроса не ждёт ни того, ни другого
+    public Mono<QrResponse> generate(String text, String username, QrRenderOptions options) {
+        return Mono.fromCallable(() -> qrService.registerQrCode(text, username))
+                .subscribeOn(blockingScheduler)
+                .flatMap(qrEntity -> renderPng(qrEntity, options)
+                        .map(image -> new QrResponse(qrEntity.getId(), qrService.toBase64(image))));
+    }
+
+    // Чанки обрабатываются по одному и не больше чем на один вперёд того, что уже отдаётся клиенту,
+    // поэтому медленный клиент не раздувает память и не заставляет читать весь вход
+    public Flux<BulkQrResult> generateBulk(Flux<QrGenerationRequest> requests) {
+        return requests.buffer(chunkSize)
+                .concatMap(chunk -> Mono.fromCallable(() -> qrService.generateBulkQrCodes(chunk))
+                        .subscribeOn(blockingScheduler), 1)
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    // NDJSON читается по мере спроса; битая строка завершает вход, а ошибка уходит последней строкой,
+    // как в BulkQrStreamService
+    public Flux<BulkQrResult> generateBulk(InputStream input) {
+        return Flux.defer(() -> {
+            AtomicBoolean malformed = new AtomicBoolean();
+            return generateBulk(readRequests(input, malformed))
+                    .concatWith(Mono.fromSupplier(() -> malformed.get()
+                            ? BulkQrResult.failure(null, null, "Malformed NDJSON input") : null));
+        }).subscribeOn(blockingScheduler);
+    }
+
+    private Mono<byte[]> renderPng(QrEntity qrEntity, QrRenderOptions options) {
+        // PNG по умолчанию читается из хранилища (при первом запросе дорисовывается и сохраняется),
+        // остальное — чистый рендер через кэш
+        Scheduler scheduler = options.isDefault() ? blockingScheduler : renderScheduler;
+        return Mono.fromCallable(() -> qrService.renderQr(qrEntity, QrImageFormat.PNG, options))
+                .subscribeOn(scheduler);
+    }
+
+    private Flux<QrGenerationRequest> readRequests(InputStream input, AtomicBoolean malformed) {
+        return Flux.using(
+                () -> objectMapper.readerFor(QrGenerationRequest.class).<QrGenerationRequest>readValues(input),
+                requests -> Flux.<QrGenerationRequest>generate(sink -> {
+                    try {
+                        if (requests.hasNextValue()) {
+                            sink.next(requests.nextValue());
+                        } else {
+                            sink.complete();
+                        }
+                    } catch (IOException | RuntimeJsonMappingException e) {
+                        log.warn("Stopping reactive NDJSON bulk stream: {}", e.getMessage());
+                        malformed.set(true);
+                        sink.complete();
+                    }
+                }),
+                ReactiveQrService::closeQuietly);
+    }
+
+    private static void closeQuietly(MappingIterator<QrGenerationRequest> requests) {
+        try {
+            requests.close();
+        } catch (IOException e) {
+            log.debug("Failed to close NDJSON reader: {}", e.getMessage());
+        }
+    }
+}
@@ -1,24 +1,90 @@
 package com.example.ANONIMUS.service;
 
+import com.example.ANONIMUS.dto.EndpointMetricsResponse;
+import com.example.ANONIMUS.dto.RequestMetricsResponse;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
+// Счётчики запросов по методу контроллера и статусу плюс гистограмма задержек.
+// Запись без общих мониторов: LongAdder и ConcurrentHashMap. Сброс начинает новое окно,
+// запросы, записанные в момент переключения, могут попасть в закрытое окно
 @Service
 public class RequestCounterService {
-    private final AtomicLong counter = new AtomicLong(0);
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window());
 
+    public void record(String endpoint, int status, long elapsedNanos) {
+        Window current = window.get();
+        current.total.increment();
+        EndpointStats stats = current.endpoints.get(endpoint);
+        if (stats == null) {
+            stats = current.endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        }
+        stats.record(status, TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    public long getCount() {
+        return window.get().total.sum();
+    }
+
+    public void reset() {
+        window.set(new Window());
+    }
 
-    public synchronized void increment() {
-        counter.incrementAndGet();
+    public RequestMetricsResponse getMetrics() {
+        return window.get().snapshot();
     }
 
+    // Закрывает текущее окно и возвращает его итог
+    public RequestMetricsResponse resetWindow() {
+        return window.getAndSet(new Window()).snapshot();
+    }
+
+    private static final class Window {
+        private final Instant start = Instant.now();
+        private final LongAdder total = new LongAdder();
+        private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
 
-    public synchronized long getCount() {
-        return counter.get();
+        private RequestMetricsResponse snapshot() {
+            List<EndpointMetricsResponse> items = endpoints.entrySet().stream()
+                    .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                    .sorted(Comparator.comparing(EndpointMetricsResponse::getEndpoint))
+                    .toList();
+            return new RequestMetricsResponse(start, Instant.now(), total.sum(), items);
+        }
     }
 
-    public synchronized void reset() {
-        counter.set(0);
+    private static final class EndpointStats {
+        private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void record(int status, long micros) {
+            LongAdder counter = statuses.get(status);
+            if (counter == null) {
+                counter = statuses.computeIfAbsent(status, key -> new LongAdder());
+            }
+            counter.increment();
+            latency.record(micros);
+        }
+
+        private EndpointMetricsResponse snapshot(String endpoint) {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, counter) -> counts.put(status, counter.sum()));
+            return new EndpointMetricsResponse(endpoint, latency.count(), counts,
+                    toMillis(latency.percentile(0.5)), toMillis(latency.percentile(0.99)),
+                    toMillis(latency.percentile(0.999)), toMillis(latency.max()));
+        }
+
+        private static double toMillis(long micros) {
+            return micros / 1000.0;
+        }
     }
-}
\ No newline at end of file
+}
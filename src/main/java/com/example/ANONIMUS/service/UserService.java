@@ -1,63 +1,166 @@
 package com.example.ANONIMUS.service;
 
 import com.example.ANONIMUS.cache.CacheService;
+import com.example.ANONIMUS.dao.UserDao;
+import com.example.ANONIMUS.dto.CursorPage;
+import com.example.ANONIMUS.dto.UserSnapshot;
+import com.example.ANONIMUS.dto.UserSummaryResponse;
 import com.example.ANONIMUS.model.User;
 import com.example.ANONIMUS.repository.UserRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
     private static final String USER_CACHE_PREFIX = "user_";
+    private static final String USER_ID_CACHE_PREFIX = "user_id_";
+    private static final String ALL_USERS_CACHE_KEY = "all_users";
+    private static final int LOCK_STRIPES = 64;
+    // Ограничение на число параметров в одном IN-запросе
+    private static final int IN_CLAUSE_CHUNK = 1000;
 
     private final UserRepository userRepository;
     private final CacheService cacheService;
+    private final UserDao userDao;
+    private final TransactionTemplate newTransaction;
+    // Параллельные запросы с одним новым именем ждут друг друга здесь, а не на уникальном индексе
+    private final ReentrantLock[] userLocks = new ReentrantLock[LOCK_STRIPES];
 
-    public UserService(UserRepository userRepository, CacheService cacheService) {
+    public UserService(UserRepository userRepository, CacheService cacheService, UserDao userDao,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.cacheService = cacheService;
+        this.userDao = userDao;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
     }
 
     public User createUser(User user) {
         User savedUser = userRepository.save(user);
-        cacheService.put(USER_CACHE_PREFIX + savedUser.getId(), savedUser);
+        cacheService.put(USER_CACHE_PREFIX + savedUser.getId(), UserSnapshot.from(savedUser));
+        cacheService.evict(ALL_USERS_CACHE_KEY);
         return savedUser;
     }
 
-    public Optional<User> getUserById(Long id) {
-        String cacheKey = USER_CACHE_PREFIX + id;
-        if (cacheService.containsKey(cacheKey)) {
-            return Optional.of(cacheService.get(cacheKey, User.class));
+    // Атомарный get-or-create: upsert в отдельной короткой транзакции, id кэшируется только после коммита
+    public long getOrCreateUserId(String username) {
+        String cacheKey = USER_ID_CACHE_PREFIX + username;
+        Long cached = cacheService.get(cacheKey, Long.class);
+        if (cached != null) {
+            return cached;
+        }
+        ReentrantLock lock = userLocks[Math.floorMod(username.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            cached = cacheService.get(cacheKey, Long.class);
+            if (cached != null) {
+                return cached;
+            }
+            Long id = newTransaction.execute(status -> userRepository.findByUsername(username)
+                    .orElseGet(() -> {
+                        // Другой экземпляр приложения мог вставить ту же строку: ON CONFLICT DO NOTHING
+                        // дождётся его коммита и ничего не сделает, повторный SELECT её увидит
+                        userDao.insertMissing(List.of(username));
+                        cacheService.evict(ALL_USERS_CACHE_KEY);
+                        return userRepository.findByUsername(username).orElseThrow();
+                    })
+                    .getId());
+            cacheService.put(cacheKey, id);
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Для bulk: работает в транзакции вызывающего. Новые пользователи в кэш не попадают,
+    // пока транзакция не закоммичена, кэшируются только найденные сразу
+    public Map<String, Long> resolveUserIds(Collection<String> usernames) {
+        Map<String, Long> idsByName = new HashMap<>();
+        List<String> uncached = usernames.stream()
+                .filter(username -> {
+                    Long cached = cacheService.get(USER_ID_CACHE_PREFIX + username, Long.class);
+                    if (cached != null) {
+                        idsByName.put(username, cached);
+                    }
+                    return cached == null;
+                })
+                .collect(Collectors.toList());
+        loadUserIds(uncached, idsByName);
+        idsByName.forEach((username, id) -> cacheService.put(USER_ID_CACHE_PREFIX + username, id));
+
+        List<String> missing = uncached.stream()
+                .filter(username -> !idsByName.containsKey(username))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            userDao.insertMissing(missing);
+            cacheService.evict(ALL_USERS_CACHE_KEY);
+            loadUserIds(missing, idsByName);
         }
-        Optional<User> user = userRepository.findById(id);
-        user.ifPresent(u -> cacheService.put(cacheKey, u));
-        return user;
+        return idsByName;
     }
 
-    public List<User> getAllUsers() {
-        String cacheKey = "all_users";
-        if (cacheService.containsKey(cacheKey)) {
-            return cacheService.getList(cacheKey, User.class);
+    private void loadUserIds(List<String> usernames, Map<String, Long> idsByName) {
+        for (int from = 0; from < usernames.size(); from += IN_CLAUSE_CHUNK) {
+            List<String> chunk = usernames.subList(from, Math.min(usernames.size(), from + IN_CLAUSE_CHUNK));
+            userRepository.findByUsernameIn(chunk).forEach(user -> idsByName.put(user.getUsername(), user.getId()));
         }
-        List<User> users = userRepository.findAll();
-        cacheService.put(cacheKey, users);
-        return users;
+    }
+
+    public Optional<UserSummaryResponse> getUserById(Long id) {
+        String cacheKey = USER_CACHE_PREFIX + id;
+        UserSnapshot user = cacheService.getOrLoad(cacheKey, UserSnapshot.class, () ->
+                userRepository.findById(id).map(UserSnapshot::from).orElse(null));
+        return Optional.ofNullable(user).map(UserSnapshot::toSummary);
+    }
+
+    public CursorPage<UserSummaryResponse> getUsers(Long after, int limit) {
+        // В кэше только первая страница размера по умолчанию
+        boolean firstPage = after == null && limit == CursorPage.DEFAULT_LIMIT;
+        CursorPage<UserSnapshot> page = firstPage
+                ? cacheService.getOrLoad(ALL_USERS_CACHE_KEY, () -> loadUsers(null, limit))
+                : loadUsers(after, limit);
+        return page.map(UserSnapshot::toSummary);
+    }
+
+    private CursorPage<UserSnapshot> loadUsers(Long after, int limit) {
+        List<UserSnapshot> rows = userRepository.findPageAfter(after == null ? 0 : after, Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, UserSnapshot::id);
     }
 
     public User updateUser(Long id, User userDetails) {
         return userRepository.findById(id)
                 .map(user -> {
+                    cacheService.evict(USER_ID_CACHE_PREFIX + user.getUsername());
                     user.setUsername(userDetails.getUsername());
                     User updatedUser = userRepository.save(user);
-                    cacheService.put(USER_CACHE_PREFIX + id, updatedUser);
+                    cacheService.put(USER_CACHE_PREFIX + id, UserSnapshot.from(updatedUser));
+                    cacheService.evict(ALL_USERS_CACHE_KEY);
                     return updatedUser;
                 })
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new NoSuchElementException("User not found"));
     }
 
     public void deleteUser(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("User not found"));
+        cacheService.evict(USER_ID_CACHE_PREFIX + user.getUsername());
         userRepository.deleteById(id);
         cacheService.evict(USER_CACHE_PREFIX + id);
+        cacheService.evict(ALL_USERS_CACHE_KEY);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.example.ANONIMUS.storage;
+
+import com.example.ANONIMUS.model.QrImage;
+import com.example.ANONIMUS.repository.QrImageRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Картинки в bytea-таблице qr_images; запись идёт в транзакции вызывающего
+@Component
+@ConditionalOnProperty(name = "app.qr.storage.type", havingValue = "db", matchIfMissing = true)
+public class DbImageStorage implements ImageStorage {
+    private final QrImageRepository qrImageRepository;
+
+    public DbImageStorage(QrImageRepository qrImageRepository) {
+        this.qrImageRepository = qrImageRepository;
+    }
+
+    @Override
+    public void save(Long qrId, byte[] png) {
+        qrImageRepository.save(new QrImage(qrId, png));
+    }
+
+    @Override
+    public void replace(Long qrId, byte[] png) {
+        QrImage image = qrImageRepository.findById(qrId).orElseGet(() -> new QrImage(qrId, png));
+        image.setData(png);
+        qrImageRepository.save(image);
+    }
+
+    @Override
+    public boolean saveIfAbsent(Long qrId, byte[] png) {
+        return qrImageRepository.insertIfAbsent(qrId, png) > 0;
+    }
+
+    @Override
+    public Optional<byte[]> find(Long qrId) {
+        return qrImageRepository.findById(qrId).map(QrImage::getData);
+    }
+
+    @Override
+    public Map<Long, byte[]> findAll(Collection<Long> qrIds) {
+        Map<Long, byte[]> images = new HashMap<>();
+        qrImageRepository.findAllById(qrIds).forEach(image -> images.put(image.getQrId(), image.getData()));
+        return images;
+    }
+
+    @Override
+    public void delete(Long qrId) {
+        qrImageRepository.deleteById(qrId);
+    }
+}
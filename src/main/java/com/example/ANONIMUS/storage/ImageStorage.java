@@ -0,0 +1,29 @@
+package com.example.ANONIMUS.storage;
+
+import com.example.ANONIMUS.cache.BytesLease;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+// Где лежат PNG с параметрами по умолчанию: app.qr.storage.type=db (таблица qr_images) или segments (файлы)
+public interface ImageStorage {
+
+    void save(Long qrId, byte[] png);
+
+    void replace(Long qrId, byte[] png);
+
+    // false, если картинка уже есть (её успел сохранить параллельный запрос)
+    boolean saveIfAbsent(Long qrId, byte[] png);
+
+    Optional<byte[]> find(Long qrId);
+
+    Map<Long, byte[]> findAll(Collection<Long> qrIds);
+
+    void delete(Long qrId);
+
+    // Чтение без копии в кучу; пусто, если хранилище так не умеет или картинки нет
+    default Optional<BytesLease> open(Long qrId) {
+        return Optional.empty();
+    }
+}
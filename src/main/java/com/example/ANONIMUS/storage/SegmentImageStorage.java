@@ -0,0 +1,504 @@
+package com.example.ANONIMUS.storage;
+
+import com.example.ANONIMUS.cache.BytesLease;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Картинки дописываются в отображённые в память файлы-сегменты фиксированного размера.
+// Запись: [magic][qrId][length][crc32][data], удаление — запись-надгробие с length = -1.
+// Сам лог и есть индекс: при старте сегменты читаются по порядку, оборванный хвост отрезается по crc.
+// Сегменты, где мёртвых данных больше порога, переписываются в активный сегмент и удаляются
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.qr.storage.type", havingValue = "segments")
+public class SegmentImageStorage implements ImageStorage {
+    static final int HEADER_SIZE = 20;
+    private static final int MAGIC = 0x51524753;
+    private static final int TOMBSTONE = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    private final ExecutorService compactionExecutor;
+    private final ConcurrentHashMap<Long, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    // Один писатель: дозапись, переключение сегмента и правка индекса при уплотнении
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Segment active;
+
+    @Autowired
+    public SegmentImageStorage(@Value("${app.qr.storage.segments.dir:data/qr-segments}") String directory,
+                               @Value("${app.qr.storage.segments.segment-size:64MB}") DataSize segmentSize,
+                               @Value("${app.qr.storage.segments.compaction-threshold:0.5}") double compactionThreshold)
+            throws IOException {
+        this(Paths.get(directory), (int) segmentSize.toBytes(), compactionThreshold,
+                Executors.newSingleThreadExecutor(new CustomizableThreadFactory("qr-segment-compaction-")));
+    }
+
+    SegmentImageStorage(Path directory, int segmentSize, double compactionThreshold,
+                        ExecutorService compactionExecutor) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.compactionExecutor = compactionExecutor;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    @Override
+    public void save(Long qrId, byte[] png) {
+        Location location;
+        writeLock.lock();
+        try {
+            location = put(qrId, png);
+        } finally {
+            writeLock.unlock();
+        }
+        discardOnRollback(qrId, location, null);
+    }
+
+    @Override
+    public void replace(Long qrId, byte[] png) {
+        Location location;
+        byte[] previousImage;
+        writeLock.lock();
+        try {
+            // Под writeLock уплотнение не перенесёт старую запись, пока мы её читаем
+            previousImage = find(qrId).orElse(null);
+            location = put(qrId, png);
+        } finally {
+            writeLock.unlock();
+        }
+        discardOnRollback(qrId, location, previousImage);
+    }
+
+    @Override
+    public boolean saveIfAbsent(Long qrId, byte[] png) {
+        Location location;
+        writeLock.lock();
+        try {
+            if (index.containsKey(qrId)) {
+                return false;
+            }
+            location = put(qrId, png);
+        } finally {
+            writeLock.unlock();
+        }
+        discardOnRollback(qrId, location, null);
+        return true;
+    }
+
+    @Override
+    public Optional<byte[]> find(Long qrId) {
+        try (BytesLease lease = open(qrId).orElse(null)) {
+            return lease == null ? Optional.empty() : Optional.of(lease.toByteArray());
+        }
+    }
+
+    @Override
+    public Map<Long, byte[]> findAll(Collection<Long> qrIds) {
+        Map<Long, byte[]> images = new HashMap<>();
+        for (Long qrId : qrIds) {
+            find(qrId).ifPresent(png -> images.put(qrId, png));
+        }
+        return images;
+    }
+
+    @Override
+    public void delete(Long qrId) {
+        // Надгробие пишется только после коммита: при откате удаления картинка должна остаться
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(qrId);
+                }
+            });
+            return;
+        }
+        remove(qrId);
+    }
+
+    @Override
+    public Optional<BytesLease> open(Long qrId) {
+        // Уплотнение могло перенести запись и закрыть сегмент между чтением индекса и захватом — читаем индекс заново.
+        // Записи в сегменте не меняются, поэтому захваченный сегмент всегда отдаёт целые байты
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Location location = index.get(qrId);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Segment segment = segments.get(location.segmentId());
+            if (segment != null && segment.acquire()) {
+                return Optional.of(new SegmentLease(segment, location));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @PreDestroy
+    public void close() {
+        compactionExecutor.shutdownNow();
+        writeLock.lock();
+        try {
+            segments.values().forEach(Segment::release);
+            segments.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    long liveCount() {
+        return index.size();
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    // Вызывается под writeLock
+    private Location put(Long qrId, byte[] png) {
+        Location location = append(qrId, png);
+        Location previous = index.put(qrId, location);
+        if (previous != null) {
+            markDead(previous);
+        }
+        return location;
+    }
+
+    private void remove(Long qrId) {
+        writeLock.lock();
+        try {
+            Location previous = index.remove(qrId);
+            if (previous != null) {
+                append(qrId, null);
+                markDead(previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Файл не участвует в транзакции БД: если строка qr_codes откатилась, запись сразу становится мусором.
+    // Для replace старая картинка дописывается заново, чтобы и индекс, и лог при восстановлении снова указывали на неё
+    private void discardOnRollback(Long qrId, Location location, byte[] previousImage) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                writeLock.lock();
+                try {
+                    if (!location.equals(index.get(qrId))) {
+                        return;
+                    }
+                    if (previousImage != null) {
+                        index.put(qrId, append(qrId, previousImage));
+                    } else {
+                        index.remove(qrId);
+                        append(qrId, null);
+                    }
+                    markDead(location);
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        });
+    }
+
+    // Вызывается под writeLock
+    private Location append(long qrId, byte[] data) {
+        int length = data == null ? TOMBSTONE : data.length;
+        int recordSize = HEADER_SIZE + Math.max(0, length);
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Image of " + length + " bytes does not fit into a segment");
+        }
+        if (active.end + recordSize > active.capacity) {
+            active = createSegment(active.id + 1);
+        }
+        MappedByteBuffer map = active.map;
+        int offset = active.end;
+        map.putLong(offset + 4, qrId);
+        map.putInt(offset + 12, length);
+        if (data != null) {
+            map.put(offset + HEADER_SIZE, data);
+        }
+        map.putInt(offset + 16, checksum(map, offset, length));
+        // magic пишется последним: запись без него при восстановлении считается концом лога
+        map.putInt(offset, MAGIC);
+        map.force(offset, recordSize);
+        active.end = offset + recordSize;
+        return new Location(active.id, offset, length);
+    }
+
+    private void markDead(Location location) {
+        Segment segment = segments.get(location.segmentId());
+        if (segment == null) {
+            return;
+        }
+        segment.deadBytes.addAndGet(HEADER_SIZE + location.length());
+        scheduleCompaction(segment);
+    }
+
+    private void scheduleCompaction(Segment segment) {
+        if (segment == active || segment.deadBytes.get() < segment.end * compactionThreshold
+                || !segment.compacting.compareAndSet(false, true)) {
+            return;
+        }
+        compactionExecutor.execute(() -> compact(segment));
+    }
+
+    private void compact(Segment segment) {
+        if (!segment.acquire()) {
+            return;
+        }
+        try {
+            int position = 0;
+            while (position < segment.end) {
+                long qrId = segment.map.getLong(position + 4);
+                int length = segment.map.getInt(position + 12);
+                Location here = new Location(segment.id, position, length);
+                writeLock.lock();
+                try {
+                    if (length == TOMBSTONE) {
+                        // Надгробие нужно, пока живы более старые сегменты с записями этого ключа
+                        if (!index.containsKey(qrId) && segments.firstKey() < segment.id) {
+                            append(qrId, null);
+                        }
+                    } else if (here.equals(index.get(qrId))) {
+                        index.put(qrId, append(qrId, segment.read(here)));
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+                position += HEADER_SIZE + Math.max(0, length);
+            }
+            segments.remove(segment.id);
+            segment.retired = true;
+            log.info("Compacted image segment {} ({} dead bytes)", segment.id, segment.deadBytes.get());
+        } finally {
+            segment.release();
+        }
+        // Владение сегментом снято: файл удалится, когда его дочитают последние читатели
+        segment.release();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            Segment segment = openSegment(file, segmentId(file));
+            segments.put(segment.id, segment);
+            replay(segment);
+        }
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        new ArrayList<>(segments.values()).forEach(this::scheduleCompaction);
+        log.info("Image segments recovered: {} segments, {} images", segments.size(), index.size());
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer map = segment.map;
+        int position = 0;
+        while (position + HEADER_SIZE <= segment.capacity && map.getInt(position) == MAGIC) {
+            long qrId = map.getLong(position + 4);
+            int length = map.getInt(position + 12);
+            int recordSize = HEADER_SIZE + Math.max(0, length);
+            if (length < TOMBSTONE || position + recordSize > segment.capacity
+                    || map.getInt(position + 16) != checksum(map, position, length)) {
+                break;
+            }
+            Location previous = length == TOMBSTONE
+                    ? index.remove(qrId)
+                    : index.put(qrId, new Location(segment.id, position, length));
+            if (previous != null) {
+                Segment owner = segments.get(previous.segmentId());
+                owner.deadBytes.addAndGet(HEADER_SIZE + previous.length());
+            }
+            position += recordSize;
+        }
+        segment.end = position;
+        // Оборванная при падении запись: затираем хвост, чтобы новая дозапись не склеилась со старым мусором
+        if (position + HEADER_SIZE <= segment.capacity && map.getInt(position) != 0) {
+            log.warn("Truncating torn tail of image segment {} at offset {}", segment.id, position);
+            for (int i = position; i < segment.capacity; i++) {
+                map.put(i, (byte) 0);
+            }
+            map.force();
+        }
+    }
+
+    private Segment createSegment(int id) {
+        try {
+            Path file = directory.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX));
+            Segment segment = openSegment(file, id);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create image segment " + id, e);
+        }
+    }
+
+    private Segment openSegment(Path file, int id) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new Segment(id, file, channel, map, (int) size);
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(MappedByteBuffer map, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(map.slice(offset + 4, 12));
+        if (length > 0) {
+            crc.update(map.slice(offset + HEADER_SIZE, length));
+        }
+        return (int) crc.getValue();
+    }
+
+    private record Location(int segmentId, int offset, int length) {
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer map;
+        private final int capacity;
+        private final AtomicLong deadBytes = new AtomicLong();
+        private final AtomicBoolean compacting = new AtomicBoolean();
+        // Всё живое переписано в другие сегменты, файл можно удалять
+        private volatile boolean retired;
+        // Одна ссылка принадлежит хранилищу, остальные — читателям и уплотнению
+        private final AtomicInteger references = new AtomicInteger(1);
+        private volatile int end;
+
+        private Segment(int id, Path file, FileChannel channel, MappedByteBuffer map, int capacity) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.map = map;
+            this.capacity = capacity;
+        }
+
+        private boolean acquire() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() != 0) {
+                return;
+            }
+            try {
+                channel.close();
+                if (retired) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to release image segment {}", id, e);
+            }
+        }
+
+        private byte[] read(Location location) {
+            byte[] data = new byte[location.length()];
+            map.get(location.offset() + HEADER_SIZE, data);
+            return data;
+        }
+    }
+
+    private static final class SegmentLease implements BytesLease {
+        private final Segment segment;
+        private final Location location;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private SegmentLease(Segment segment, Location location) {
+            this.segment = segment;
+            this.location = location;
+        }
+
+        @Override
+        public int length() {
+            return location.length();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = location.offset() + HEADER_SIZE;
+            long remaining = location.length();
+            while (remaining > 0) {
+                long written = segment.channel.transferTo(position, remaining, target);
+                position += written;
+                remaining -= written;
+            }
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return segment.read(location);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                segment.release();
+            }
+        }
+    }
+}
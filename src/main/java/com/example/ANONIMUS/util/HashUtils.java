@@ -0,0 +1,22 @@
+package com.example.ANONIMUS.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    public static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязан поддерживаться любой JVM
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.ANONIMUS.aspect;
+
+import com.example.ANONIMUS.service.RequestCounterService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class LoggingAspectTest {
+
+    @Test
+    void cancelledStreamIsRecordedAsClientClosedRequest() throws Throwable {
+        RequestCounterService requestCounterService = mock(RequestCounterService.class);
+        AsyncRequestLogger requestLogger = mock(AsyncRequestLogger.class);
+        LoggingAspect aspect = new LoggingAspect(requestCounterService, requestLogger);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        Signature signature = mock(Signature.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getDeclaringType()).thenReturn(LoggingAspectTest.class);
+        when(signature.getName()).thenReturn("stream");
+        when(joinPoint.proceed()).thenReturn(Flux.just(1, 2).concatWith(Flux.never()));
+
+        // Клиент получил два элемента и отключился
+        StepVerifier.create((Flux<?>) aspect.measure(joinPoint))
+                .expectNextCount(2)
+                .thenCancel()
+                .verify();
+
+        verify(requestCounterService).record(eq("LoggingAspectTest.stream"),
+                eq(LoggingAspect.CLIENT_CLOSED_REQUEST), anyLong());
+        verify(requestLogger).log(eq("LoggingAspectTest.stream"), eq(LoggingAspect.CLIENT_CLOSED_REQUEST),
+                anyLong(), eq(2L), eq(true));
+    }
+}
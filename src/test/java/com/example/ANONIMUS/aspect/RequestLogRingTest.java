@@ -0,0 +1,60 @@
+package com.example.ANONIMUS.aspect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestLogRingTest {
+
+    @Test
+    void fullRingRejectsInsteadOfBlocking() {
+        RequestLogRing<Integer> ring = new RequestLogRing<>(3);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+
+        assertFalse(ring.offer(4));
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void concurrentWritersLoseNothingAcceptedByRing() throws Exception {
+        RequestLogRing<Integer> ring = new RequestLogRing<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            int base = thread * 10_000;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (seen.size() < 40_000 && System.nanoTime() < deadline) {
+            Integer item = ring.poll();
+            if (item != null) {
+                assertTrue(seen.add(item));
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(40_000, seen.size());
+        assertNull(ring.poll());
+    }
+}
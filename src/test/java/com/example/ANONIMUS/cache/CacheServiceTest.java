@@ -0,0 +1,195 @@
+package com.example.ANONIMUS.cache;
+
+import com.example.ANONIMUS.dto.CacheStatsResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheServiceTest {
+
+    private CacheService newCacheService() {
+        CacheProperties properties = new CacheProperties();
+        properties.setTtl(Map.of("qr_", Duration.ofMinutes(30), "qr_user_", Duration.ofMinutes(5)));
+        return new CacheService(properties);
+    }
+
+    @Test
+    void getReturnsStoredValueAndCountsHitsAndMisses() {
+        CacheService cacheService = newCacheService();
+        cacheService.put("qr_1", "payload");
+
+        assertEquals("payload", cacheService.get("qr_1", String.class));
+        assertNull(cacheService.get("qr_2", String.class));
+
+        CacheStatsResponse stats = cacheService.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    void metersReportHeapAndOffHeapCaches() {
+        CacheService cacheService = newCacheService();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cacheService.bindTo(registry);
+        cacheService.put("qr_1", "payload");
+        cacheService.put("qr_image_1", new byte[1000]);
+
+        cacheService.get("qr_1", String.class);
+        cacheService.get("qr_2", String.class);
+        cacheService.get("qr_image_1", byte[].class);
+
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "app", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "app", "result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.offheap.entries").gauge().value());
+        assertEquals(1000.0, registry.get("cache.offheap.used").gauge().value());
+        assertEquals(1.0, registry.get("cache.offheap.gets").tags("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void evictRemovesEntry() {
+        CacheService cacheService = newCacheService();
+        cacheService.put("qr_user_alice", List.of("a", "b"));
+
+        assertEquals(List.of("a", "b"), cacheService.getList("qr_user_alice", String.class));
+        cacheService.evict("qr_user_alice");
+        assertFalse(cacheService.containsKey("qr_user_alice"));
+    }
+
+    @Test
+    void longestPrefixWinsForTtl() {
+        PrefixExpiry expiry = new PrefixExpiry(
+                Map.of("qr_", Duration.ofMinutes(30), "qr_user_", Duration.ofMinutes(5)),
+                Duration.ofMinutes(1));
+
+        assertEquals(Duration.ofMinutes(5).toNanos(), expiry.ttlNanos("qr_user_bob"));
+        assertEquals(Duration.ofMinutes(30).toNanos(), expiry.ttlNanos("qr_42"));
+        assertEquals(Duration.ofMinutes(1).toNanos(), expiry.ttlNanos("all_users"));
+    }
+
+    @Test
+    void concurrentMissesRunLoaderOnce() throws Exception {
+        CacheService cacheService = newCacheService();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(pool.submit(() -> cacheService.getOrLoad("qr_user_hot", String.class, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "page";
+            })));
+        }
+        // Даём всем потокам дойти до ожидания, потом отпускаем единственную загрузку
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("page", future.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals("page", cacheService.get("qr_user_hot", String.class));
+    }
+
+    @Test
+    void evictDuringLoadKeepsStaleResultOutOfCache() {
+        CacheService cacheService = newCacheService();
+
+        String loaded = cacheService.getOrLoad("qr_user_bob", String.class, () -> {
+            cacheService.evict("qr_user_bob");
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertFalse(cacheService.containsKey("qr_user_bob"));
+        assertEquals("fresh", cacheService.getOrLoad("qr_user_bob", String.class, () -> "fresh"));
+        assertTrue(cacheService.containsKey("qr_user_bob"));
+    }
+
+    @Test
+    void failedOrEmptyLoadIsNotCached() {
+        CacheService cacheService = newCacheService();
+
+        assertThrows(IllegalStateException.class, () -> cacheService.getOrLoad("qr_1", String.class, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertNull(cacheService.getOrLoad("qr_1", String.class, () -> null));
+        assertEquals("payload", cacheService.getOrLoad("qr_1", String.class, () -> "payload"));
+    }
+
+    @Test
+    void putAndEvictAfterCommitDoNotLeakRolledBackValues() {
+        CacheService cacheService = newCacheService();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+        cacheService.put("qr_1", "old");
+        cacheService.put("qr_user_alice", "page");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cacheService.putAfterCommit("qr_1", "new");
+            cacheService.evictAfterCommit("qr_user_alice");
+            // До коммита новое значение не видно, а страница уже выкинута
+            assertEquals("old", cacheService.get("qr_1", String.class));
+            assertNull(cacheService.get("qr_user_alice", String.class));
+            cacheService.put("qr_user_alice", "read before commit");
+            status.setRollbackOnly();
+        });
+        assertEquals("old", cacheService.get("qr_1", String.class));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cacheService.putAfterCommit("qr_1", "new");
+            cacheService.evictAfterCommit("qr_user_alice");
+            cacheService.put("qr_user_alice", "read before commit");
+        });
+        assertEquals("new", cacheService.get("qr_1", String.class));
+        assertNull(cacheService.get("qr_user_alice", String.class));
+
+        // Вне транзакции всё применяется сразу
+        cacheService.putAfterCommit("qr_2", "direct");
+        assertEquals("direct", cacheService.get("qr_2", String.class));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.ANONIMUS.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapImageStoreTest {
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    @Test
+    void storedBytesAreWrittenBackUnchanged() throws Exception {
+        OffHeapImageStore store = new OffHeapImageStore(OffHeapImageStore.SLAB_SIZE);
+        // 20000 байт больше буфера передачи — запись идёт несколькими кусками
+        byte[] png = bytes(20_000, 7);
+        assertTrue(store.put("qr_image_1", png));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BytesLease lease = store.lease("qr_image_1")) {
+            assertEquals(png.length, lease.length());
+            lease.writeTo(out);
+        }
+        assertArrayEquals(png, out.toByteArray());
+        assertArrayEquals(png, store.get("qr_image_1"));
+        assertNull(store.get("qr_image_2"));
+    }
+
+    @Test
+    void leastRecentlyReadEntryIsEvictedWhenSlabsAreFull() {
+        // Один слаб на класс 256 КБ: ровно 4 куска
+        OffHeapImageStore store = new OffHeapImageStore(OffHeapImageStore.SLAB_SIZE);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(store.put("qr_render_" + i, bytes(200_000, i)));
+        }
+        store.get("qr_render_0");
+
+        assertTrue(store.put("qr_render_4", bytes(200_000, 4)));
+
+        assertTrue(store.contains("qr_render_0"));
+        assertFalse(store.contains("qr_render_1"));
+        assertEquals(1, store.stats().getEvictionCount());
+    }
+
+    @Test
+    void pinnedChunkIsNotReusedUntilLeaseIsClosed() {
+        OffHeapImageStore store = new OffHeapImageStore(OffHeapImageStore.SLAB_SIZE);
+        byte[] original = bytes(200_000, 1);
+        store.put("qr_image_1", original);
+        BytesLease lease = store.lease("qr_image_1");
+
+        store.remove("qr_image_1");
+        for (int i = 0; i < 4; i++) {
+            store.put("qr_image_" + (10 + i), bytes(200_000, 50 + i));
+        }
+
+        // Свободных кусков было три, закреплённый не переиспользован — четвёртой вставке пришлось вытеснять
+        assertArrayEquals(original, lease.toByteArray());
+        assertEquals(1, store.stats().getEvictionCount());
+        lease.close();
+        assertTrue(store.put("qr_image_20", bytes(200_000, 9)));
+        assertEquals(1, store.stats().getEvictionCount());
+    }
+
+    @Test
+    void slabMovesToAnotherSizeClassWhenItIsFreeOrOlder() {
+        // Два слаба, оба сначала целиком уходят мелкому классу
+        OffHeapImageStore store = new OffHeapImageStore(2L * OffHeapImageStore.SLAB_SIZE);
+        int perSlab = OffHeapImageStore.SLAB_SIZE / 1024;
+        for (int i = 0; i < 2 * perSlab; i++) {
+            assertTrue(store.put("qr_render_small_" + i, bytes(1000, i)));
+        }
+        // Первый слаб освобождён полностью — крупный класс получает его без вытеснения
+        for (int i = 0; i < perSlab; i++) {
+            store.remove("qr_render_small_" + i);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(store.put("qr_render_large_" + i, bytes(200_000, i)));
+        }
+        assertEquals(0, store.stats().getEvictionCount());
+
+        // Куски крупного класса читали позже, чем мелкие: пятая крупная картинка забирает слаб мелкого класса
+        for (int i = 0; i < 4; i++) {
+            store.get("qr_render_large_" + i);
+        }
+        assertTrue(store.put("qr_render_large_4", bytes(200_000, 4)));
+        assertArrayEquals(bytes(200_000, 4), store.get("qr_render_large_4"));
+        assertArrayEquals(bytes(200_000, 0), store.get("qr_render_large_0"));
+        assertFalse(store.contains("qr_render_small_" + perSlab));
+        assertEquals(perSlab, store.stats().getEvictionCount());
+
+        // Мелкому классу теперь отдаётся самый давний слаб крупного класса, а не отказ
+        assertTrue(store.put("qr_render_small_x", bytes(1000, 1)));
+        assertArrayEquals(bytes(1000, 1), store.get("qr_render_small_x"));
+    }
+
+    @Test
+    void oversizedOrDisabledStoreRejectsAndDropsOldCopy() {
+        OffHeapImageStore store = new OffHeapImageStore(OffHeapImageStore.SLAB_SIZE);
+        store.put("qr_image_1", bytes(100, 1));
+
+        assertFalse(store.put("qr_image_1", bytes(OffHeapImageStore.MAX_CHUNK + 1, 1)));
+        assertFalse(store.contains("qr_image_1"));
+        assertFalse(new OffHeapImageStore(0).put("qr_image_1", bytes(100, 1)));
+    }
+
+    @Test
+    void sizeClassesArePowersOfTwo() {
+        assertEquals(0, OffHeapImageStore.classIndex(1));
+        assertEquals(0, OffHeapImageStore.classIndex(256));
+        assertEquals(1, OffHeapImageStore.classIndex(257));
+        assertEquals(10, OffHeapImageStore.classIndex(OffHeapImageStore.MAX_CHUNK));
+    }
+}
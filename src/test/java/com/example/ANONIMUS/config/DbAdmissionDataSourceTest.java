@@ -0,0 +1,56 @@
+package com.example.ANONIMUS.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DbAdmissionDataSourceTest {
+
+    @Test
+    void rejectsImmediatelyWhenLimitReachedAndAdmitsAfterClose() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection physical = mock(Connection.class);
+        when(target.getConnection()).thenReturn(physical);
+        DbAdmissionDataSource dataSource = new DbAdmissionDataSource(target, 2);
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        // Повторный close не должен выдать лишнее разрешение
+        first.close();
+        assertEquals(1, dataSource.available());
+        verify(physical, times(1)).close();
+
+        dataSource.getConnection();
+        second.close();
+        assertEquals(1, dataSource.available());
+    }
+
+    @Test
+    void releasesPermitWhenPoolFails() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("pool timeout"));
+        DbAdmissionDataSource dataSource = new DbAdmissionDataSource(target, 1);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.available());
+    }
+
+    @Test
+    void closeShutsDownTargetPool() throws Exception {
+        HikariDataSource target = mock(HikariDataSource.class);
+
+        new DbAdmissionDataSource(target, 1).close();
+
+        verify(target).close();
+    }
+}
@@ -1,20 +1,29 @@
 package com.example.ANONIMUS.controller;
 
+import com.example.ANONIMUS.cache.BytesLease;
 import com.example.ANONIMUS.dto.BulkQrRequest;
 import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.CursorPage;
 import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
 import com.example.ANONIMUS.dto.QrResponse;
+import com.example.ANONIMUS.dto.QrSummaryResponse;
 import com.example.ANONIMUS.model.QrEntity;
+import com.example.ANONIMUS.service.BulkQrStreamService;
 import com.example.ANONIMUS.service.QrService;
+import com.example.ANONIMUS.service.RequestCounterService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,6 +42,12 @@ public class QrControllerTest {
     @MockBean
     private QrService qrService;
 
+    @MockBean
+    private RequestCounterService requestCounterService;
+
+    @MockBean
+    private BulkQrStreamService bulkQrStreamService;
+
     private String asJsonString(final Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -46,7 +61,7 @@ public class QrControllerTest {
         // Создаём объект QrResponse через мок
         QrResponse qrResponse = mock(QrResponse.class);
         when(qrResponse.getQrCode()).thenReturn("dummyQrCodeBase64");
-        when(qrService.generateAndSaveQrCode("test", "testuser")).thenReturn(qrResponse);
+        when(qrService.generateAndSaveQrCode("test", "testuser", QrRenderOptions.defaults())).thenReturn(qrResponse);
 
         mockMvc.perform(get("/api/qr")
                         .param("text", "test")
@@ -124,27 +139,51 @@ public class QrControllerTest {
                         .content(asJsonString(bulkRequest)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].error", not(exists())))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
                 .andExpect(jsonPath("$[1].error", is("Invalid text or username")));
     }
 
     @Test
     public void getQrCodesByUserValidUserReturnsQrCodes() throws Exception {
-        // Создаём моки для QR-кодов
-        QrEntity code1 = mock(QrEntity.class);
-        QrEntity code2 = mock(QrEntity.class);
-        when(code1.getContent()).thenReturn("first");
-        when(code2.getContent()).thenReturn("second");
-        List<QrEntity> qrCodes = List.of(code1, code2);
+        List<QrSummaryResponse> qrCodes = List.of(
+                new QrSummaryResponse(1L, "first"),
+                new QrSummaryResponse(2L, "second"));
 
-        when(qrService.getQrCodesByUsername("testuser")).thenReturn(qrCodes);
+        when(qrService.getQrCodesByUsername("testuser", null, CursorPage.DEFAULT_LIMIT))
+                .thenReturn(new CursorPage<>(qrCodes, null));
 
         mockMvc.perform(get("/api/qr/by-user")
                         .param("username", "testuser"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].content", is("first")))
-                .andExpect(jsonPath("$[1].content", is("second")));
+                .andExpect(jsonPath("$[0].qrCodeBase64").doesNotExist())
+                .andExpect(jsonPath("$[1].content", is("second")))
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void getQrCodesByUserReturnsNextCursorWhenMorePagesExist() throws Exception {
+        when(qrService.getQrCodesByUsername("testuser", 10L, 2))
+                .thenReturn(new CursorPage<>(List.of(
+                        new QrSummaryResponse(11L, "a"),
+                        new QrSummaryResponse(12L, "b")), 12L));
+
+        mockMvc.perform(get("/api/qr/by-user")
+                        .param("username", "testuser")
+                        .param("after", "10")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "12"));
+    }
+
+    @Test
+    public void getQrCodesByUserWithTooLargeLimitReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/qr/by-user")
+                        .param("username", "testuser")
+                        .param("limit", "100000"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -156,11 +195,158 @@ public class QrControllerTest {
 
     @Test
     public void getQrCodesByUserUserNotFoundReturnsEmptyList() throws Exception {
-        when(qrService.getQrCodesByUsername("nonexistent")).thenReturn(List.of());
+        when(qrService.getQrCodesByUsername("nonexistent", null, CursorPage.DEFAULT_LIMIT))
+                .thenReturn(new CursorPage<>(List.of(), null));
 
         mockMvc.perform(get("/api/qr/by-user")
                         .param("username", "nonexistent"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", empty()));
     }
+
+    @Test
+    public void getQrImageExistingIdReturnsPngBytes() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        when(qrService.openQrImage(1L, QrImageFormat.PNG, QrRenderOptions.defaults()))
+                .thenReturn(Optional.of(BytesLease.of(png)));
+
+        mockMvc.perform(get("/api/qr/{id}/image", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(png));
+    }
+
+    @Test
+    public void getQrImageUnknownIdReturnsNotFound() throws Exception {
+        when(qrService.openQrImage(999L, QrImageFormat.PNG, QrRenderOptions.defaults())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/qr/{id}/image", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getQrImageWithSvgAcceptReturnsSvg() throws Exception {
+        byte[] svg = "<svg/>".getBytes();
+        when(qrService.openQrImage(1L, QrImageFormat.SVG, QrRenderOptions.defaults()))
+                .thenReturn(Optional.of(BytesLease.of(svg)));
+
+        mockMvc.perform(get("/api/qr/{id}/image", 1L).accept("image/svg+xml"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(content().bytes(svg));
+    }
+
+    @Test
+    public void generateQrCodeWithModulesAcceptReturnsMatrix() throws Exception {
+        QrEntity qrEntity = new QrEntity();
+        qrEntity.setId(7L);
+        qrEntity.setContent("test");
+        byte[] modules = {21, 0x7F};
+        when(qrService.registerQrCode("test", "testuser")).thenReturn(qrEntity);
+        when(qrService.renderQr(qrEntity, QrImageFormat.MODULES, QrRenderOptions.defaults())).thenReturn(modules);
+
+        mockMvc.perform(get("/api/qr")
+                        .param("text", "test")
+                        .param("username", "testuser")
+                        .accept("application/vnd.qr-modules"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/vnd.qr-modules"))
+                .andExpect(header().string("Content-Location", "/api/qr/7/image"))
+                .andExpect(content().bytes(modules));
+    }
+
+    @Test
+    public void getQrImageWithRenderParametersPassesOptions() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        when(qrService.openQrImage(1L, QrImageFormat.PNG, QrRenderOptions.of(400, 2, "H")))
+                .thenReturn(Optional.of(BytesLease.of(png)));
+
+        mockMvc.perform(get("/api/qr/{id}/image", 1L)
+                        .param("size", "400")
+                        .param("margin", "2")
+                        .param("errorCorrection", "h"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(png));
+    }
+
+    @Test
+    public void generateQrCodeWithInvalidErrorCorrectionReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/qr")
+                        .param("text", "test")
+                        .param("username", "testuser")
+                        .param("errorCorrection", "X"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void negotiatedResponsesVaryByAccept() throws Exception {
+        byte[] svg = "<svg/>".getBytes();
+        when(qrService.findContentHash(1L)).thenReturn(Optional.of("abc"));
+        when(qrService.openQrImage(1L, QrImageFormat.SVG, QrRenderOptions.defaults()))
+                .thenReturn(Optional.of(BytesLease.of(svg)));
+        when(qrService.openQrImage(999L, QrImageFormat.PNG, QrRenderOptions.defaults())).thenReturn(Optional.empty());
+
+        String etag = mockMvc.perform(get("/api/qr/{id}/image", 1L).accept("image/svg+xml"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, "Accept"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/qr/{id}/image", 1L).accept("image/svg+xml")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, "Accept"));
+        mockMvc.perform(get("/api/qr/{id}/image", 999L))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(HttpHeaders.VARY, "Accept"));
+        mockMvc.perform(get("/api/qr").param("text", " ").param("username", "testuser"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string(HttpHeaders.VARY, "Accept"));
+    }
+
+    @Test
+    public void getQrImageWithMatchingETagReturnsNotModifiedWithoutOpeningImage() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        when(qrService.findContentHash(1L)).thenReturn(Optional.of("abc"));
+        when(qrService.openQrImage(1L, QrImageFormat.PNG, QrRenderOptions.defaults()))
+                .thenReturn(Optional.of(BytesLease.of(png)));
+
+        String etag = mockMvc.perform(get("/api/qr/{id}/image", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(qrService.openQrImage(1L, QrImageFormat.PNG, QrRenderOptions.defaults()))
+                .thenThrow(new AssertionError("image must not be opened"));
+        mockMvc.perform(get("/api/qr/{id}/image", 1L).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        // Другой размер — другие байты и другой ETag
+        mockMvc.perform(get("/api/qr/{id}/image", 1L).header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .param("size", "400"))
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    public void getQrCodesByUserWithMatchingETagReturnsNotModified() throws Exception {
+        when(qrService.getQrCodesByUsername("testuser", null, CursorPage.DEFAULT_LIMIT))
+                .thenReturn(new CursorPage<>(List.of(new QrSummaryResponse(1L, "first")), null));
+
+        String etag = mockMvc.perform(get("/api/qr/by-user").param("username", "testuser"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/qr/by-user").param("username", "testuser")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        when(qrService.getQrCodesByUsername("testuser", null, CursorPage.DEFAULT_LIMIT))
+                .thenReturn(new CursorPage<>(List.of(new QrSummaryResponse(1L, "first"),
+                        new QrSummaryResponse(2L, "second")), null));
+        mockMvc.perform(get("/api/qr/by-user").param("username", "testuser")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
 }
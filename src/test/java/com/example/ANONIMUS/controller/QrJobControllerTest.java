@@ -0,0 +1,106 @@
+package com.example.ANONIMUS.controller;
+
+import com.example.ANONIMUS.dto.BulkJobStatusResponse;
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.model.BulkJob;
+import com.example.ANONIMUS.service.BulkJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(QrJobController.class)
+public class QrJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BulkJobService bulkJobService;
+
+    private static BulkJobStatusResponse job(BulkJob.Status status) {
+        BulkJob job = new BulkJob();
+        job.setId(1L);
+        job.setStatus(status);
+        job.setTotalItems(2);
+        job.setCreatedAt(Instant.now());
+        return BulkJobStatusResponse.from(job);
+    }
+
+    @Test
+    public void submitJobReturnsAccepted() throws Exception {
+        when(bulkJobService.submit(anyList())).thenReturn(Optional.of(job(BulkJob.Status.QUEUED)));
+
+        mockMvc.perform(post("/api/qr/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\":[{\"text\":\"a\",\"username\":\"u\"},{\"text\":\"b\",\"username\":\"u\"}]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    public void submitJobWhenQueueFullReturnsTooManyRequests() throws Exception {
+        when(bulkJobService.submit(anyList())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/qr/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\":[{\"text\":\"a\",\"username\":\"u\"}]}"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void submitEmptyJobReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/qr/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bulkJobService, never()).submit(anyList());
+    }
+
+    @Test
+    public void getUnknownJobReturnsNotFound() throws Exception {
+        when(bulkJobService.getJob(5L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/qr/jobs/5"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getResultsOfRunningJobReturnsConflict() throws Exception {
+        when(bulkJobService.getJob(1L)).thenReturn(Optional.of(job(BulkJob.Status.RUNNING)));
+
+        mockMvc.perform(get("/api/qr/jobs/1/results"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void getResultsOfCompletedJobReturnsPage() throws Exception {
+        when(bulkJobService.getJob(1L)).thenReturn(Optional.of(job(BulkJob.Status.COMPLETED)));
+        when(bulkJobService.getResults(1L, 0, 100)).thenReturn(List.of(
+                BulkQrResult.success("a", "u", 10L, null),
+                BulkQrResult.failure("", "u", "Text cannot be empty")));
+
+        mockMvc.perform(get("/api/qr/jobs/1/results"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].qrId").value(10))
+                .andExpect(jsonPath("$[0].imageUrl").value("/api/qr/10/image"))
+                .andExpect(jsonPath("$[1].error").value("Text cannot be empty"));
+    }
+}
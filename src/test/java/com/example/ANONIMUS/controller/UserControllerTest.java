@@ -1,5 +1,7 @@
 package com.example.ANONIMUS.controller;
 
+import com.example.ANONIMUS.dto.CursorPage;
+import com.example.ANONIMUS.dto.UserSummaryResponse;
 import com.example.ANONIMUS.model.User;
 import com.example.ANONIMUS.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -7,15 +9,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;  // Обратите внимание, используем @MockBean
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -61,11 +66,7 @@ public class UserControllerTest {
 
     @Test
     public void getUserByIdExistsReturnsUser() throws Exception {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(1L);
-        when(user.getUsername()).thenReturn("testuser");
-
-        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+        when(userService.getUserById(1L)).thenReturn(Optional.of(new UserSummaryResponse(1L, "testuser")));
 
         mockMvc.perform(get("/api/users/{id}", 1L))
                 .andExpect(status().isOk())
@@ -105,15 +106,11 @@ public class UserControllerTest {
 
     @Test
     public void getAllUsersReturnsAllUsers() throws Exception {
-        User user1 = mock(User.class);
-        when(user1.getId()).thenReturn(1L);
-        when(user1.getUsername()).thenReturn("user1");
-
-        User user2 = mock(User.class);
-        when(user2.getId()).thenReturn(2L);
-        when(user2.getUsername()).thenReturn("user2");
+        List<UserSummaryResponse> users = List.of(
+                new UserSummaryResponse(1L, "user1"),
+                new UserSummaryResponse(2L, "user2"));
 
-        when(userService.getAllUsers()).thenReturn(List.of(user1, user2));
+        when(userService.getUsers(null, CursorPage.DEFAULT_LIMIT)).thenReturn(new CursorPage<>(users, null));
 
         mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk())
@@ -145,7 +142,7 @@ public class UserControllerTest {
 
         // Сервис не находит пользователя и выбрасывает исключение (будет обработано как NOT_FOUND)
         when(userService.updateUser(eq(999L), any(User.class)))
-                .thenThrow(new RuntimeException("User not found"));
+                .thenThrow(new NoSuchElementException("User not found"));
 
         mockMvc.perform(put("/api/users/{id}", 999L)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -159,7 +156,7 @@ public class UserControllerTest {
         when(duplicateUser.getUsername()).thenReturn("duplicate");
 
         when(userService.createUser(any(User.class)))
-                .thenThrow(new RuntimeException("Duplicate username"));
+                .thenThrow(new DataIntegrityViolationException("Duplicate username"));
 
         mockMvc.perform(post("/api/users")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -181,7 +178,7 @@ public class UserControllerTest {
     @Test
     public void deleteUserNonExistingIdReturnsNotFound() throws Exception {
         // Допустим, при удалении несуществующего пользователя сервис выбрасывает исключение
-        when(userService.deleteUser(eq(999L))).thenThrow(new RuntimeException("User not found"));
+        doThrow(new NoSuchElementException("User not found")).when(userService).deleteUser(999L);
 
         mockMvc.perform(delete("/api/users/{id}", 999L))
                 .andExpect(status().isNotFound());
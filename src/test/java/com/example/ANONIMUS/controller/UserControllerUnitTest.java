@@ -1,5 +1,7 @@
 package com.example.ANONIMUS.controller;
 
+import com.example.ANONIMUS.dto.CursorPage;
+import com.example.ANONIMUS.dto.UserSummaryResponse;
 import com.example.ANONIMUS.model.User;
 import com.example.ANONIMUS.service.UserService;
 import org.junit.jupiter.api.Test;
@@ -32,7 +34,6 @@ public class UserControllerUnitTest {
         // Создаём мока пользователя вместо new User()
         User newUser = mock(User.class);
         when(newUser.getUsername()).thenReturn("testuser");
-        when(newUser.getId()).thenReturn(1L);
 
         when(userService.createUser(any(User.class))).thenReturn(newUser);
 
@@ -44,13 +45,9 @@ public class UserControllerUnitTest {
 
     @Test
     void getUserByIdExistsReturnsUser() {
-        User user = mock(User.class);
-        when(user.getId()).thenReturn(1L);
-        when(user.getUsername()).thenReturn("testuser");
+        when(userService.getUserById(eq(1L))).thenReturn(Optional.of(new UserSummaryResponse(1L, "testuser")));
 
-        when(userService.getUserById(eq(1L))).thenReturn(Optional.of(user));
-
-        ResponseEntity<User> response = userController.getUserById(1L);
+        ResponseEntity<UserSummaryResponse> response = userController.getUserById(1L);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("testuser", response.getBody().getUsername());
@@ -60,17 +57,13 @@ public class UserControllerUnitTest {
     void getUserByIdNotExistsReturnsNotFound() {
         when(userService.getUserById(eq(1L))).thenReturn(Optional.empty());
 
-        ResponseEntity<User> response = userController.getUserById(1L);
+        ResponseEntity<UserSummaryResponse> response = userController.getUserById(1L);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void updateUserValidIdReturnsUpdatedUser() {
-        User existingUser = mock(User.class);
-        when(existingUser.getId()).thenReturn(1L);
-        when(existingUser.getUsername()).thenReturn("oldname");
-
         User updatedUser = mock(User.class);
         when(updatedUser.getUsername()).thenReturn("newname");
 
@@ -92,17 +85,13 @@ public class UserControllerUnitTest {
 
     @Test
     void getAllUsersReturnsAllUsers() {
-        User user1 = mock(User.class);
-        when(user1.getId()).thenReturn(1L);
-        when(user1.getUsername()).thenReturn("user1");
+        List<UserSummaryResponse> users = List.of(
+                new UserSummaryResponse(1L, "user1"),
+                new UserSummaryResponse(2L, "user2"));
 
-        User user2 = mock(User.class);
-        when(user2.getId()).thenReturn(2L);
-        when(user2.getUsername()).thenReturn("user2");
+        when(userService.getUsers(null, CursorPage.DEFAULT_LIMIT)).thenReturn(new CursorPage<>(users, null));
 
-        when(userService.getAllUsers()).thenReturn(Arrays.asList(user1, user2));
-
-        ResponseEntity<List<User>> response = userController.getAllUsers();
+        ResponseEntity<List<UserSummaryResponse>> response = userController.getAllUsers(null, CursorPage.DEFAULT_LIMIT);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(2, response.getBody().size());
@@ -112,7 +101,6 @@ public class UserControllerUnitTest {
     @Test
     void updateUserNonExistingIdThrowsException() {
         User updatedUser = mock(User.class);
-        when(updatedUser.getUsername()).thenReturn("newname");
 
         when(userService.updateUser(eq(99L), any(User.class)))
                 .thenThrow(new RuntimeException("User not found"));
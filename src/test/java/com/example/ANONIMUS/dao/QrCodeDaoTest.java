@@ -0,0 +1,86 @@
+package com.example.ANONIMUS.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Пачечные вставки с ON CONFLICT DO NOTHING на H2 в режиме PostgreSQL; схему создаёт Hibernate
+@DataJpaTest(showSql = false, properties = {
+        "spring.datasource.url=jdbc:h2:mem:qr-dao;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({QrCodeDao.class, UserDao.class})
+public class QrCodeDaoTest {
+
+    @Autowired
+    private QrCodeDao qrCodeDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idByHash(String hash) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM qr_codes WHERE content_hash = ?", Long.class, hash);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    @Test
+    void insertMissingAssignsIdsToEveryHash() {
+        // Больше строк, чем batch_size: вставка идёт несколькими пачками
+        Map<String, String> contentByHash = Map.of("h3", "three", "h1", "one", "h2", "two");
+
+        Map<String, Long> ids = qrCodeDao.insertMissing(contentByHash);
+
+        assertEquals(contentByHash.keySet(), ids.keySet());
+        assertEquals(3, ids.values().stream().distinct().count());
+        ids.forEach((hash, id) -> assertEquals(id, idByHash(hash)));
+        assertEquals("two", jdbcTemplate.queryForObject(
+                "SELECT content FROM qr_codes WHERE id = ?", String.class, ids.get("h2")));
+    }
+
+    @Test
+    void existingHashIsSkippedWithoutError() {
+        Long existing = qrCodeDao.insertMissing(Map.of("dup", "first")).get("dup");
+
+        Map<String, Long> ids = qrCodeDao.insertMissing(Map.of("dup", "second", "fresh", "new"));
+
+        // Назначенный id занятого хэша в таблицу не попал, строка осталась прежней
+        assertNotEquals(existing, ids.get("dup"));
+        assertEquals(existing, idByHash("dup"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM qr_codes WHERE content_hash = 'dup'", Integer.class));
+        assertEquals("first", jdbcTemplate.queryForObject(
+                "SELECT content FROM qr_codes WHERE id = ?", String.class, existing));
+        assertEquals(ids.get("fresh"), idByHash("fresh"));
+    }
+
+    @Test
+    void emptyInputDoesNotTouchTheSequence() {
+        assertTrue(qrCodeDao.insertMissing(Map.of()).isEmpty());
+    }
+
+    @Test
+    void userInsertIsIdempotent() {
+        userDao.insertMissing(List.of("carol", "alice"));
+        userDao.insertMissing(List.of("alice", "bob", "carol"));
+
+        assertEquals(List.of("alice", "bob", "carol"), jdbcTemplate.queryForList(
+                "SELECT username FROM app_users WHERE username IN ('alice', 'bob', 'carol') ORDER BY username",
+                String.class));
+    }
+}
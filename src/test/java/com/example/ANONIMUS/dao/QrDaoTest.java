@@ -0,0 +1,118 @@
+package com.example.ANONIMUS.dao;
+
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QrDaoTest {
+
+    private final QrDao qrDao = new QrDao();
+
+    private static BufferedImage read(byte[] png) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image, "PNG must be readable by ImageIO");
+        return image;
+    }
+
+    @Test
+    void generatedPngDecodesBackToText() throws Exception {
+        String text = "https://example.com/qr?id=42&user=test";
+        BufferedImage image = read(qrDao.generateQrCode(text));
+
+        assertEquals(200, image.getWidth());
+        assertEquals(200, image.getHeight());
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        assertEquals(text, new QRCodeReader().decode(bitmap).getText());
+    }
+
+    @Test
+    void encoderMatchesMatrixPixelForPixel() throws Exception {
+        // Ширина 203 не кратна ни 8, ни 32 — проверяем хвост строки
+        BitMatrix matrix = new QRCodeWriter().encode("pixel check", BarcodeFormat.QR_CODE, 203, 203);
+        BufferedImage image = read(QrPngEncoder.encode(matrix));
+
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                int expected = matrix.get(x, y) ? 0xFF000000 : 0xFFFFFFFF;
+                assertEquals(expected, image.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void encoderIsReusableAcrossCallsOnTheSameThread() throws Exception {
+        byte[] first = qrDao.generateQrCode("first");
+        byte[] large = qrDao.generateQrCode("x".repeat(900));
+        byte[] again = qrDao.generateQrCode("first");
+
+        assertArrayEquals(first, again);
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(read(large))));
+        assertEquals("x".repeat(900), new QRCodeReader().decode(bitmap).getText());
+    }
+
+    @Test
+    void modulesFormatMatchesQrModules() throws Exception {
+        BitMatrix expected = new QRCodeWriter().encode("modules", BarcodeFormat.QR_CODE, 0, 0,
+                Map.of(EncodeHintType.MARGIN, 0));
+        byte[] modules = qrDao.render("modules", QrImageFormat.MODULES, QrRenderOptions.defaults());
+
+        int size = modules[0] & 0xFF;
+        int rowBytes = (size + 7) / 8;
+        assertEquals(expected.getWidth(), size);
+        assertEquals(1 + size * rowBytes, modules.length);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                boolean dark = (modules[1 + y * rowBytes + x / 8] & (0x80 >>> (x % 8))) != 0;
+                assertEquals(expected.get(x, y), dark, "module " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void svgFormatDrawsModulesWithQuietZone() {
+        String svg = new String(qrDao.render("https://example.com/print/12345", QrImageFormat.SVG, QrRenderOptions.defaults()),
+                StandardCharsets.US_ASCII);
+
+        assertTrue(svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\""));
+        assertTrue(svg.contains("viewBox=\"0 0 33 33\""));
+        // Левый верхний finder pattern: сплошная строка из 7 модулей после рамки в 4 модуля
+        assertTrue(svg.contains("M4 4h7v1h-7z"));
+        assertTrue(svg.endsWith("</svg>"));
+        assertTrue(qrDao.render("https://example.com/print/12345", QrImageFormat.MODULES, QrRenderOptions.defaults()).length
+                < qrDao.render("https://example.com/print/12345", QrImageFormat.PNG, QrRenderOptions.defaults()).length);
+    }
+
+    @Test
+    void defaultPngMatchesQrCodeWriterLayout() throws Exception {
+        // Сохранённые ранее картинки и новые с параметрами по умолчанию должны совпадать байт в байт
+        BitMatrix reference = new QRCodeWriter().encode("layout", BarcodeFormat.QR_CODE, 200, 200);
+
+        assertArrayEquals(QrPngEncoder.encode(reference), qrDao.generateQrCode("layout"));
+    }
+
+    @Test
+    void customSizeMarginAndErrorCorrectionDecode() throws Exception {
+        byte[] png = qrDao.render("custom", QrImageFormat.PNG, QrRenderOptions.of(420, 1, "H"));
+        BufferedImage image = read(png);
+
+        assertEquals(420, image.getWidth());
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        assertEquals("custom", new QRCodeReader().decode(bitmap).getText());
+    }
+}
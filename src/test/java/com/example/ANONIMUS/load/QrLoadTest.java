@@ -0,0 +1,308 @@
+package com.example.ANONIMUS.load;
+
+import com.example.ANONIMUS.dto.EndpointMetricsResponse;
+import com.example.ANONIMUS.dto.RequestMetricsResponse;
+import com.example.ANONIMUS.service.RequestCounterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Нагрузка на весь стек (HTTP, аспект, кэш, JPA) поверх H2 в режиме PostgreSQL.
+// Запускается только профилем load, параметры — системные свойства load.*
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.root=WARN",
+        "logging.level.com.example.ANONIMUS=WARN"
+})
+public class QrLoadTest {
+    // Ошибка транспорта (таймаут, обрыв соединения) вместо HTTP-статуса
+    private static final int TRANSPORT_ERROR = -1;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RequestCounterService serverMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${load.concurrency:16}")
+    private int concurrency;
+
+    @Value("${load.warmup:5s}")
+    private Duration warmup;
+
+    @Value("${load.duration:20s}")
+    private Duration duration;
+
+    @Value("${load.mix:generate=35,by-user=30,users=20,image=10,bulk=5}")
+    private String mix;
+
+    @Value("${load.users:50}")
+    private int users;
+
+    @Value("${load.texts:500}")
+    private int texts;
+
+    @Value("${load.bulk-size:20}")
+    private int bulkSize;
+
+    // Доля текстов, которых ещё нет в БД: они проходят рендер и вставку, остальные — дедупликацию и кэш
+    @Value("${load.new-text-ratio:0.1}")
+    private double newTextRatio;
+
+    @Value("${load.max-error-rate:0.01}")
+    private double maxErrorRate;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong newTexts = new AtomicLong();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        Map<Operation, Integer> weights = parseMix(mix);
+        for (int user = 0; user < users; user++) {
+            send(generate("user-" + user, text(0)));
+        }
+
+        run(weights, warmup, new RequestCounterService());
+        serverMetrics.resetWindow();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        RequestCounterService clientMetrics = new RequestCounterService();
+        long started = System.nanoTime();
+        run(weights, duration, clientMetrics);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        RequestMetricsResponse client = clientMetrics.getMetrics();
+        RequestMetricsResponse server = serverMetrics.getMetrics();
+        Map<String, Object> report = report(client, server, statistics, seconds);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(Path.of("target", "load-report.json").toFile(), report);
+        print(client, statistics, seconds);
+
+        long errors = client.getEndpoints().stream().mapToLong(QrLoadTest::errors).sum();
+        assertTrue(client.getTotalRequests() > 0, "No requests were sent");
+        assertTrue((double) errors / client.getTotalRequests() <= maxErrorRate,
+                "Error rate " + errors + "/" + client.getTotalRequests() + " exceeds " + maxErrorRate);
+    }
+
+    private void run(Map<Operation, Integer> weights, Duration length, RequestCounterService metrics) throws Exception {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        long deadline = System.nanoTime() + length.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    Operation operation = pick(weights, ThreadLocalRandom.current().nextInt(total));
+                    HttpRequest request = request(operation);
+                    long start = System.nanoTime();
+                    int status = send(request);
+                    metrics.record(operation.label, status, System.nanoTime() - start);
+                }
+            });
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(length.toSeconds() + 60, TimeUnit.SECONDS), "Load workers did not stop");
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TRANSPORT_ERROR;
+        } catch (Exception e) {
+            return TRANSPORT_ERROR;
+        }
+    }
+
+    private HttpRequest request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String username = "user-" + random.nextInt(users);
+        return switch (operation) {
+            case GENERATE -> generate(username, nextText());
+            case BULK -> post("/api/qr/bulk", bulkBody());
+            case BY_USER -> get("/api/qr/by-user?username=" + username);
+            case USERS -> random.nextBoolean()
+                    ? get("/api/users")
+                    : get("/api/users/" + (1 + random.nextInt(users)));
+            case IMAGE -> get("/api/qr/" + (1 + random.nextInt(users)) + "/image");
+        };
+    }
+
+    private HttpRequest generate(String username, String text) {
+        return get("/api/qr?text=" + text + "&username=" + username);
+    }
+
+    private String bulkBody() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder body = new StringBuilder("{\"requests\":[");
+        for (int i = 0; i < bulkSize; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"text\":\"").append(nextText())
+                    .append("\",\"username\":\"user-").append(random.nextInt(users)).append("\"}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private String nextText() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < newTextRatio) {
+            return "new-" + newTexts.incrementAndGet();
+        }
+        return text(random.nextInt(texts));
+    }
+
+    private static String text(int index) {
+        return "load-text-" + index;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Operation pick(Map<Operation, Integer> weights, int roll) {
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty load mix");
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            Operation operation = Operation.fromLabel(pair[0].trim());
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no positive weights: " + mix);
+        }
+        return weights;
+    }
+
+    // Ошибкой считаются 5xx и сбои транспорта; 4xx видны в разбивке по статусам
+    private static long errors(EndpointMetricsResponse endpoint) {
+        return endpoint.getStatusCounts().entrySet().stream()
+                .filter(entry -> entry.getKey() >= 500 || entry.getKey() == TRANSPORT_ERROR)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    private Map<String, Object> report(RequestMetricsResponse client, RequestMetricsResponse server,
+                                       Statistics statistics, double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", seconds);
+        report.put("mix", mix);
+        report.put("throughput", client.getTotalRequests() / seconds);
+        report.put("client", client);
+        report.put("server", server);
+        Map<String, Object> database = new LinkedHashMap<>();
+        database.put("preparedStatements", statistics.getPrepareStatementCount());
+        database.put("statementsPerRequest", (double) statistics.getPrepareStatementCount() / client.getTotalRequests());
+        database.put("queries", statistics.getQueryExecutionCount());
+        database.put("entityLoads", statistics.getEntityLoadCount());
+        database.put("collectionFetches", statistics.getCollectionFetchCount());
+        database.put("transactions", statistics.getTransactionCount());
+        report.put("database", database);
+        return report;
+    }
+
+    private void print(RequestMetricsResponse client, Statistics statistics, double seconds) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Load: %d workers, %.1f s, mix %s", concurrency, seconds, mix));
+        lines.add(String.format("%-10s %8s %9s %8s %9s %9s %9s %9s  %s",
+                "operation", "count", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms", "statuses"));
+        for (EndpointMetricsResponse endpoint : client.getEndpoints()) {
+            lines.add(String.format("%-10s %8d %9.1f %8d %9.2f %9.2f %9.2f %9.2f  %s",
+                    endpoint.getEndpoint(), endpoint.getCount(), endpoint.getCount() / seconds, errors(endpoint),
+                    endpoint.getP50Millis(), endpoint.getP99Millis(), endpoint.getP999Millis(),
+                    endpoint.getMaxMillis(), endpoint.getStatusCounts()));
+        }
+        lines.add(String.format("Total %.1f req/s; DB: %d statements (%.2f per request), %d entity loads, %d collection fetches",
+                client.getTotalRequests() / seconds, statistics.getPrepareStatementCount(),
+                (double) statistics.getPrepareStatementCount() / client.getTotalRequests(),
+                statistics.getEntityLoadCount(), statistics.getCollectionFetchCount()));
+        System.out.println(String.join(System.lineSeparator(), lines));
+    }
+
+    private enum Operation {
+        GENERATE("generate"),
+        BULK("bulk"),
+        BY_USER("by-user"),
+        USERS("users"),
+        IMAGE("image");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        static Operation fromLabel(String label) {
+            for (Operation operation : values()) {
+                if (operation.label.equals(label)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown load operation: " + label);
+        }
+    }
+}
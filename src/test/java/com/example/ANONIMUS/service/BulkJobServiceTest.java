@@ -0,0 +1,154 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.model.BulkJob;
+import com.example.ANONIMUS.model.BulkJobItem;
+import com.example.ANONIMUS.repository.BulkJobItemRepository;
+import com.example.ANONIMUS.repository.BulkJobRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BulkJobServiceTest {
+
+    private final BulkJobRepository jobRepository = mock(BulkJobRepository.class);
+    private final BulkJobItemRepository itemRepository = mock(BulkJobItemRepository.class);
+    private final QrService qrService = mock(QrService.class);
+    // Менеджер-заглушка: колбэки TransactionTemplate выполняются сразу
+    private final TransactionTemplate transactionTemplate =
+            new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private BulkJobService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    private BulkJob job(long id) {
+        BulkJob job = new BulkJob();
+        job.setId(id);
+        job.setStatus(BulkJob.Status.QUEUED);
+        when(jobRepository.findById(id)).thenReturn(Optional.of(job));
+        return job;
+    }
+
+    private BulkJobItem item(long id, long jobId) {
+        BulkJobItem item = new BulkJobItem();
+        item.setId(id);
+        item.setJobId(jobId);
+        item.setText("text");
+        item.setUsername("user");
+        return item;
+    }
+
+    private void start(BulkJob... pending) {
+        when(jobRepository.findByStatusInOrderByIdAsc(anyList())).thenReturn(List.of(pending));
+        service = new BulkJobService(jobRepository, itemRepository, qrService, transactionTemplate,
+                mock(EntityManager.class), 10, 1, 10, Executors.defaultThreadFactory());
+        service.start();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void failingJobIsMarkedFailedWithTruncatedErrorAndWorkerKeepsRunning() throws Exception {
+        BulkJob failing = job(1L);
+        BulkJob next = job(2L);
+        when(itemRepository.findByJobIdAndProcessedFalseOrderByPositionAsc(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(item(10L, 1L)));
+        when(itemRepository.findByJobIdAndProcessedFalseOrderByPositionAsc(eq(2L), any(Limit.class)))
+                .thenReturn(List.of());
+        when(qrService.generateBulkQrCodes(anyList())).thenThrow(new IllegalStateException("x".repeat(5000)));
+
+        start(failing, next);
+
+        await(() -> next.getStatus() == BulkJob.Status.COMPLETED);
+        assertEquals(BulkJob.Status.FAILED, failing.getStatus());
+        assertEquals(BulkJobService.MAX_ERROR_LENGTH, failing.getError().length());
+        assertNotNull(failing.getFinishedAt());
+    }
+
+    @Test
+    void workerSurvivesWhenFailedStatusCannotBeSaved() throws Exception {
+        BulkJob next = job(2L);
+        when(jobRepository.findById(1L)).thenThrow(new IllegalStateException("database is gone"));
+        when(itemRepository.findByJobIdAndProcessedFalseOrderByPositionAsc(eq(2L), any(Limit.class)))
+                .thenReturn(List.of());
+        BulkJob broken = new BulkJob();
+        broken.setId(1L);
+
+        start(broken, next);
+
+        await(() -> next.getStatus() == BulkJob.Status.COMPLETED);
+    }
+
+    @Test
+    void longItemErrorsAreTruncated() throws Exception {
+        BulkJob job = job(1L);
+        BulkJobItem item = item(10L, 1L);
+        when(itemRepository.findByJobIdAndProcessedFalseOrderByPositionAsc(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(item), List.of());
+        when(itemRepository.findAllById(List.of(10L))).thenReturn(List.of(item));
+        when(qrService.generateBulkQrCodes(anyList()))
+                .thenReturn(List.of(BulkQrResult.failure("text", "user", "e".repeat(2000))));
+
+        start(job);
+
+        await(() -> job.getStatus() == BulkJob.Status.COMPLETED);
+        assertEquals(BulkJobService.MAX_ERROR_LENGTH, item.getError().length());
+        assertEquals(1, job.getFailedItems());
+    }
+
+    @Test
+    void jobInterruptedByShutdownStaysResumable() throws Exception {
+        BulkJob job = job(1L);
+        when(itemRepository.findByJobIdAndProcessedFalseOrderByPositionAsc(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(item(10L, 1L)));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean thrown = new AtomicBoolean();
+        // Так выглядит прерванное ожидание соединения: InterruptedException превращена в RuntimeException
+        when(qrService.generateBulkQrCodes(anyList())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                thrown.set(true);
+                throw new IllegalStateException("Interrupted during connection acquisition");
+            }
+            return List.of();
+        });
+
+        start(job);
+        started.await();
+        service.stop();
+
+        await(thrown::get);
+        Thread.sleep(200);
+        assertEquals(BulkJob.Status.RUNNING, job.getStatus());
+        assertNull(job.getError());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkQrStreamServiceTest {
+
+    @Mock
+    private QrService qrService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String run(BulkQrStreamService service, String ndjson) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.generate(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private void echoRequests() {
+        when(qrService.generateBulkQrCodes(anyList())).thenAnswer(invocation -> {
+            List<QrGenerationRequest> chunk = invocation.getArgument(0);
+            return chunk.stream()
+                    .map(r -> BulkQrResult.success(r.getText(), r.getUsername(), "png"))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void generateWritesOneLinePerRequestInChunks() throws Exception {
+        echoRequests();
+        BulkQrStreamService service = new BulkQrStreamService(qrService, objectMapper, 2);
+
+        String output = run(service,
+                "{\"text\":\"a\",\"username\":\"u\"}\n{\"text\":\"b\",\"username\":\"u\"}\n{\"text\":\"c\",\"username\":\"u\"}\n");
+
+        String[] lines = output.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("c", objectMapper.readValue(lines[2], BulkQrResult.class).getInputText());
+        verify(qrService, times(2)).generateBulkQrCodes(anyList());
+    }
+
+    @Test
+    void generateReportsMalformedLineAfterProcessedResults() throws Exception {
+        echoRequests();
+        BulkQrStreamService service = new BulkQrStreamService(qrService, objectMapper, 10);
+
+        String output = run(service, "{\"text\":\"a\",\"username\":\"u\"}\n{not json\n");
+
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("a", objectMapper.readValue(lines[0], BulkQrResult.class).getInputText());
+        assertEquals("Malformed NDJSON input", objectMapper.readValue(lines[1], BulkQrResult.class).getError());
+    }
+
+    @Test
+    void generateWithEmptyInputWritesNothing() throws Exception {
+        BulkQrStreamService service = new BulkQrStreamService(qrService, objectMapper, 10);
+
+        assertEquals("", run(service, ""));
+        verifyNoInteractions(qrService);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.cache.CacheProperties;
+import com.example.ANONIMUS.cache.CacheService;
+import com.example.ANONIMUS.dao.QrDao;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class QrRenderServiceTest {
+
+    private final QrDao qrDao = spy(new QrDao());
+    private final QrRenderService qrRenderService = new QrRenderService(qrDao, new CacheService(new CacheProperties()));
+
+    @Test
+    void newSizeReusesEncodedMatrix() {
+        byte[] small = qrRenderService.render("text", "hash", QrRenderOptions.of(100, null, null), QrImageFormat.PNG);
+        byte[] large = qrRenderService.render("text", "hash", QrRenderOptions.of(600, null, null), QrImageFormat.PNG);
+        qrRenderService.render("text", "hash", QrRenderOptions.of(600, null, null), QrImageFormat.SVG);
+
+        assertTrue(large.length > small.length);
+        verify(qrDao, times(1)).encodeModules("text", "L");
+        verify(qrDao, times(3)).rasterize(any(), any(), any());
+    }
+
+    @Test
+    void repeatedRenderIsServedFromCache() {
+        QrRenderOptions options = QrRenderOptions.of(300, 2, "M");
+        byte[] first = qrRenderService.render("text", "hash", options, QrImageFormat.PNG);
+        byte[] second = qrRenderService.render("text", "hash", options, QrImageFormat.PNG);
+
+        // Картинка хранится вне кучи, поэтому из кэша приходит копия, а не тот же массив
+        assertArrayEquals(first, second);
+        verify(qrDao, times(1)).rasterize(any(), any(), any());
+    }
+
+    @Test
+    void errorCorrectionLevelsAreEncodedSeparately() {
+        qrRenderService.render("text", "hash", QrRenderOptions.of(null, null, "L"), QrImageFormat.MODULES);
+        qrRenderService.render("text", "hash", QrRenderOptions.of(null, null, "H"), QrImageFormat.MODULES);
+
+        verify(qrDao, times(2)).encodeModules(anyString(), anyString());
+    }
+
+    @Test
+    void legacyCodesWithoutHashDoNotShareCacheEntries() {
+        QrRenderOptions options = QrRenderOptions.of(300, null, null);
+        byte[] first = qrRenderService.render("first legacy text", null, options, QrImageFormat.SVG);
+        byte[] second = qrRenderService.render("second legacy text", null, options, QrImageFormat.SVG);
+        byte[] firstModules = qrRenderService.render("first legacy text", null, options, QrImageFormat.MODULES);
+        byte[] secondModules = qrRenderService.render("second legacy text", null, options, QrImageFormat.MODULES);
+
+        assertFalse(Arrays.equals(first, second));
+        assertFalse(Arrays.equals(firstModules, secondModules));
+        verify(qrDao, times(2)).encodeModules(anyString(), anyString());
+    }
+}
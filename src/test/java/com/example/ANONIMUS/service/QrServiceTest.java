@@ -0,0 +1,259 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.example.ANONIMUS.dto.QrResponse;
+import com.example.ANONIMUS.model.QrEntity;
+import com.example.ANONIMUS.util.HashUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Сервис целиком поверх H2 в режиме PostgreSQL: дедупликация по хэшу, ON CONFLICT в пачках и гонки
+// за один и тот же текст. Пул рендера из одного потока с очередью на одну задачу, поэтому в пачках
+// большая часть рендера уходит в вызывающий поток через CallerRunsPolicy
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:qr-service;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "app.qr.bulk.parallelism=1",
+        "app.qr.bulk.queue-capacity=1",
+        "logging.level.root=WARN",
+        "logging.level.com.example.ANONIMUS=WARN"
+})
+public class QrServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private QrService qrService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Уникальный суффикс: контекст и база общие для всех тестов класса
+    private static String unique(String prefix) {
+        return prefix + "-" + UUID.randomUUID();
+    }
+
+    private int rowsWithContent(String text) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM qr_codes WHERE content_hash = ?",
+                Integer.class, HashUtils.sha256Hex(text));
+    }
+
+    private int linksOf(long qrId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_qr WHERE qr_id = ?", Integer.class, qrId);
+    }
+
+    private int usersNamed(String username) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM app_users WHERE username = ?",
+                Integer.class, username);
+    }
+
+    @Test
+    void sameTextFromTwoUsersSharesOneRow() {
+        String text = unique("shared");
+        QrResponse first = qrService.generateAndSaveQrCode(text, unique("alice"), QrRenderOptions.defaults());
+        QrResponse second = qrService.generateAndSaveQrCode(text, unique("bob"), QrRenderOptions.defaults());
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getQrCode(), second.getQrCode());
+        assertEquals(1, rowsWithContent(text));
+        assertEquals(2, linksOf(first.getId()));
+    }
+
+    @Test
+    void bulkKeepsRequestOrderAndReportsFailuresPerItem() {
+        String username = unique("bulk");
+        String known = unique("known");
+        long knownId = qrService.registerQrCode(known, unique("owner")).getId();
+        String repeated = unique("repeated");
+
+        List<QrGenerationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(new QrGenerationRequest(unique("text-" + i), username));
+        }
+        requests.add(new QrGenerationRequest(" ", username));
+        requests.add(new QrGenerationRequest(repeated, username));
+        requests.add(new QrGenerationRequest(unique("long-name"), "u".repeat(QrService.MAX_USERNAME_LENGTH + 1)));
+        requests.add(new QrGenerationRequest(repeated, unique("other")));
+        requests.add(new QrGenerationRequest(known, username));
+
+        List<BulkQrResult> results = qrService.generateBulkQrCodes(requests);
+
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(requests.get(i).getText(), results.get(i).getInputText());
+            assertEquals(requests.get(i).getUsername(), results.get(i).getInputUsername());
+        }
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            assertNull(results.get(i).getError());
+            assertNotNull(results.get(i).getQrCodeBase64());
+            ids.add(results.get(i).getQrId());
+        }
+        assertEquals(5, ids.size());
+
+        assertEquals("Invalid input text or username", results.get(5).getError());
+        assertNull(results.get(5).getQrId());
+        assertTrue(results.get(7).getError().startsWith("Username must be at most"));
+        assertEquals(0, rowsWithContent(requests.get(7).getText()));
+
+        // Повтор внутри пачки и уже сохранённый текст не создают новых строк
+        assertEquals(results.get(6).getQrId(), results.get(8).getQrId());
+        assertEquals(1, rowsWithContent(repeated));
+        assertEquals(2, linksOf(results.get(6).getQrId()));
+        assertEquals(knownId, results.get(9).getQrId());
+        assertEquals(1, rowsWithContent(known));
+        assertEquals(2, linksOf(knownId));
+    }
+
+    @Test
+    void bulkCreatesEachNewUserOnce() {
+        String username = unique("new-user");
+        List<QrGenerationRequest> requests = List.of(
+                new QrGenerationRequest(unique("a"), username),
+                new QrGenerationRequest(unique("b"), username),
+                new QrGenerationRequest(unique("c"), username));
+
+        qrService.generateBulkQrCodes(requests);
+        qrService.generateBulkQrCodes(List.of(new QrGenerationRequest(unique("d"), username)));
+
+        assertEquals(1, usersNamed(username));
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_qr l JOIN app_users u ON u.id = l.user_id WHERE u.username = ?",
+                Integer.class, username));
+    }
+
+    @Test
+    void updateOfSharedRowCopiesInsteadOfRewriting() {
+        String text = unique("before");
+        String alice = unique("alice");
+        String bob = unique("bob");
+        long sharedId = qrService.registerQrCode(text, alice).getId();
+        qrService.registerQrCode(text, bob);
+
+        String changed = unique("after");
+        QrEntity updated = qrService.updateQr(sharedId, alice, changed);
+
+        assertNotEquals(sharedId, updated.getId());
+        assertEquals(changed, updated.getContent());
+        // У второго пользователя остаётся прежний текст
+        assertEquals(text, qrService.getQrById(sharedId).content());
+        assertEquals(1, linksOf(sharedId));
+        assertEquals(1, linksOf(updated.getId()));
+    }
+
+    @Test
+    void updateBySoleOwnerRewritesRowOrReusesExistingOne() {
+        String username = unique("owner");
+        long id = qrService.registerQrCode(unique("draft"), username).getId();
+
+        String changed = unique("final");
+        assertEquals(id, qrService.updateQr(id, username, changed).getId());
+        assertEquals(changed, qrService.getQrById(id).content());
+
+        // Такой текст уже есть: переходим на готовую строку, а осиротевшую удаляем
+        String taken = unique("taken");
+        long takenId = qrService.registerQrCode(taken, unique("other")).getId();
+        assertEquals(takenId, qrService.updateQr(id, username, taken).getId());
+        assertEquals(0, rowsWithContent(changed));
+        assertEquals(2, linksOf(takenId));
+    }
+
+    @Test
+    void updateRequiresLinkedUser() {
+        long id = qrService.registerQrCode(unique("private"), unique("owner")).getId();
+
+        assertThrows(NoSuchElementException.class, () -> qrService.updateQr(id, unique("stranger"), "x"));
+    }
+
+    @Test
+    void concurrentRegistrationOfSameTextCreatesOneRow() throws Exception {
+        String text = unique("race");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<QrEntity>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String username = unique("racer-" + i);
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return qrService.registerQrCode(text, username);
+                }));
+            }
+            start.countDown();
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<QrEntity> future : futures) {
+                ids.add(future.get(30, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(1, ids.size());
+            assertEquals(1, rowsWithContent(text));
+            assertEquals(THREADS, linksOf(ids.iterator().next()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentOverlappingBulksShareRows() throws Exception {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            texts.add(unique("overlap-" + i));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<BulkQrResult>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String username = unique("batch-" + i);
+                // У каждой пачки свой порядок текстов, но все пересекаются
+                List<QrGenerationRequest> requests = new ArrayList<>();
+                for (int j = 0; j < texts.size(); j++) {
+                    requests.add(new QrGenerationRequest(texts.get((i + j) % texts.size()), username));
+                }
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return qrService.generateBulkQrCodes(requests);
+                }));
+            }
+            start.countDown();
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<List<BulkQrResult>> future : futures) {
+                for (BulkQrResult result : future.get(60, TimeUnit.SECONDS)) {
+                    assertNull(result.getError(), result.getError());
+                    ids.add(result.getQrId());
+                }
+            }
+            assertEquals(texts.size(), ids.size());
+            for (String text : texts) {
+                assertEquals(1, rowsWithContent(text));
+            }
+            for (Long id : ids) {
+                assertEquals(THREADS, linksOf(id));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.BulkQrResult;
+import com.example.ANONIMUS.dto.QrGenerationRequest;
+import com.example.ANONIMUS.dto.QrImageFormat;
+import com.example.ANONIMUS.dto.QrRenderOptions;
+import com.example.ANONIMUS.model.QrEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveQrServiceTest {
+
+    @Mock
+    private QrService qrService;
+
+    private ReactiveQrService service(int chunkSize) {
+        return new ReactiveQrService(qrService, new ObjectMapper(), Schedulers.immediate(), Schedulers.immediate(),
+                chunkSize);
+    }
+
+    private void echoRequests() {
+        when(qrService.generateBulkQrCodes(anyList())).thenAnswer(invocation -> {
+            List<QrGenerationRequest> chunk = invocation.getArgument(0);
+            return chunk.stream()
+                    .map(r -> BulkQrResult.success(r.getText(), r.getUsername(), "png"))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void bulkChunksAreProcessedOnlyOnDemand() {
+        echoRequests();
+        Flux<QrGenerationRequest> requests = Flux.range(0, 9).map(i -> new QrGenerationRequest("t" + i, "u"));
+
+        StepVerifier.create(service(2).generateBulk(requests), 1)
+                .expectNextMatches(result -> "t0".equals(result.getInputText()))
+                // Отдаваемый чанк и не больше одного заготовленного впрок
+                .then(() -> verify(qrService, atMost(2)).generateBulkQrCodes(anyList()))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(8)
+                .verifyComplete();
+        verify(qrService, times(5)).generateBulkQrCodes(anyList());
+    }
+
+    @Test
+    void malformedNdjsonEndsStreamWithFailureLine() {
+        echoRequests();
+        String ndjson = "{\"text\":\"a\",\"username\":\"u\"}\n{\"text\":\n";
+
+        List<BulkQrResult> results = service(10)
+                .generateBulk(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)))
+                .collectList()
+                .block();
+
+        assertEquals(2, results.size());
+        assertEquals("a", results.get(0).getInputText());
+        assertEquals("Malformed NDJSON input", results.get(1).getError());
+    }
+
+    @Test
+    void generateRegistersThenRendersPng() {
+        QrEntity qrEntity = new QrEntity();
+        qrEntity.setId(7L);
+        QrRenderOptions options = QrRenderOptions.of(300, null, null);
+        when(qrService.registerQrCode("text", "user")).thenReturn(qrEntity);
+        when(qrService.renderQr(qrEntity, QrImageFormat.PNG, options)).thenReturn(new byte[]{1, 2});
+        when(qrService.toBase64(any())).thenReturn("AQI=");
+
+        StepVerifier.create(service(10).generate("text", "user", options))
+                .expectNextMatches(response -> response.getId() == 7L && "AQI=".equals(response.getQrCode()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.dto.EndpointMetricsResponse;
+import com.example.ANONIMUS.dto.RequestMetricsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCounterServiceTest {
+
+    private final RequestCounterService requestCounterService = new RequestCounterService();
+
+    @Test
+    void countsByEndpointAndStatus() {
+        requestCounterService.record("QrController.getQrImage", 200, TimeUnit.MILLISECONDS.toNanos(2));
+        requestCounterService.record("QrController.getQrImage", 404, TimeUnit.MILLISECONDS.toNanos(1));
+        requestCounterService.record("UserController.getUsers", 200, TimeUnit.MILLISECONDS.toNanos(5));
+
+        RequestMetricsResponse metrics = requestCounterService.getMetrics();
+        assertEquals(3, metrics.getTotalRequests());
+        assertEquals(3, requestCounterService.getCount());
+        EndpointMetricsResponse image = metrics.getEndpoints().get(0);
+        assertEquals("QrController.getQrImage", image.getEndpoint());
+        assertEquals(Map.of(200, 1L, 404, 1L), image.getStatusCounts());
+        assertEquals(2.0, image.getMaxMillis());
+    }
+
+    @Test
+    void percentilesStayWithinBucketError() {
+        for (int micros = 1; micros <= 10_000; micros++) {
+            requestCounterService.record("QrController.generateQrCode", 200, TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        EndpointMetricsResponse metrics = requestCounterService.getMetrics().getEndpoints().get(0);
+        assertEquals(5.0, metrics.getP50Millis(), 5.0 * 0.07);
+        assertEquals(9.9, metrics.getP99Millis(), 9.9 * 0.07);
+        assertTrue(metrics.getP999Millis() <= metrics.getMaxMillis());
+        assertEquals(10.0, metrics.getMaxMillis());
+    }
+
+    @Test
+    void resetClosesWindowAndStartsEmptyOne() {
+        requestCounterService.record("QrController.getQrImage", 200, 1000);
+
+        RequestMetricsResponse closed = requestCounterService.resetWindow();
+
+        assertEquals(1, closed.getTotalRequests());
+        assertEquals(0, requestCounterService.getCount());
+        assertTrue(requestCounterService.getMetrics().getEndpoints().isEmpty());
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    requestCounterService.record("QrController.getQrImage", 200, i * 1000L);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(80_000, requestCounterService.getCount());
+        assertEquals(80_000, requestCounterService.getMetrics().getEndpoints().get(0).getCount());
+    }
+}
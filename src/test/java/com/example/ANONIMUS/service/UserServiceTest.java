@@ -0,0 +1,117 @@
+package com.example.ANONIMUS.service;
+
+import com.example.ANONIMUS.cache.CacheProperties;
+import com.example.ANONIMUS.cache.CacheService;
+import com.example.ANONIMUS.dao.UserDao;
+import com.example.ANONIMUS.dto.UserSummaryResponse;
+import com.example.ANONIMUS.model.User;
+import com.example.ANONIMUS.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserDao userDao = mock(UserDao.class);
+    private final UserService userService = new UserService(userRepository,
+            new CacheService(new CacheProperties()), userDao, mock(PlatformTransactionManager.class));
+
+    private static User user(long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    @Test
+    void concurrentCreatorsOfNewUserInsertOnce() throws Exception {
+        AtomicReference<User> stored = new AtomicReference<>();
+        when(userRepository.findByUsername("newbie")).thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+        doAnswer(invocation -> {
+            stored.set(user(7L, "newbie"));
+            return null;
+        }).when(userDao).insertMissing(anyCollection());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return userService.getOrCreateUserId("newbie");
+            }));
+        }
+        start.countDown();
+        for (Future<Long> future : futures) {
+            assertEquals(7L, future.get());
+        }
+        pool.shutdown();
+
+        verify(userDao, times(1)).insertMissing(anyCollection());
+    }
+
+    @Test
+    void resolvedIdIsServedFromCache() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice")));
+
+        assertEquals(1L, userService.getOrCreateUserId("alice"));
+        assertEquals(1L, userService.getOrCreateUserId("alice"));
+
+        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userDao, never()).insertMissing(anyCollection());
+    }
+
+    @Test
+    void resolveUserIdsInsertsOnlyMissingUsers() {
+        when(userRepository.findByUsernameIn(anyCollection()))
+                .thenReturn(List.of(user(1L, "alice")))
+                .thenReturn(List.of(user(2L, "bob")));
+
+        Map<String, Long> ids = userService.resolveUserIds(Set.of("alice", "bob"));
+
+        assertEquals(Map.of("alice", 1L, "bob", 2L), ids);
+        verify(userDao).insertMissing(List.of("bob"));
+    }
+
+    @Test
+    void deletingUserForgetsCachedId() {
+        when(userRepository.findByUsername("carol")).thenReturn(Optional.of(user(3L, "carol")));
+        userService.getOrCreateUserId("carol");
+        when(userRepository.findById(3L)).thenReturn(Optional.of(user(3L, "carol")));
+
+        userService.deleteUser(3L);
+        userService.getOrCreateUserId("carol");
+
+        verify(userRepository, times(2)).findByUsername("carol");
+    }
+
+    @Test
+    void cachedUserIsDetachedFromEntity() {
+        User entity = user(3L, "carol");
+        when(userRepository.findById(3L)).thenReturn(Optional.of(entity));
+
+        assertEquals("carol", userService.getUserById(3L).map(UserSummaryResponse::getUsername).orElseThrow());
+        // Изменение сущности после загрузки не должно протекать в кэш
+        entity.setUsername("mutated");
+        UserSummaryResponse cached = userService.getUserById(3L).orElseThrow();
+
+        assertEquals("carol", cached.getUsername());
+        verify(userRepository, times(1)).findById(3L);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.ANONIMUS.storage;
+
+import com.example.ANONIMUS.cache.BytesLease;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentImageStorageTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private SegmentImageStorage open() throws Exception {
+        // Уплотнение выполняется синхронно, чтобы тест не зависел от фонового потока
+        return new SegmentImageStorage(directory, SEGMENT_SIZE, 0.5, new DirectExecutorService());
+    }
+
+    private static byte[] png(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i + seed);
+        }
+        return data;
+    }
+
+    @Test
+    void savedImageIsReadAndTransferredBack() throws Exception {
+        SegmentImageStorage storage = open();
+        storage.save(1L, png(700, 1));
+
+        assertArrayEquals(png(700, 1), storage.find(1L).orElseThrow());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BytesLease lease = storage.open(1L).orElseThrow()) {
+            lease.writeTo(out);
+        }
+        assertArrayEquals(png(700, 1), out.toByteArray());
+        assertFalse(storage.saveIfAbsent(1L, png(10, 9)));
+        assertEquals(Set.of(1L), storage.findAll(List.of(1L, 2L)).keySet());
+        storage.close();
+    }
+
+    @Test
+    void indexIsRecoveredFromSegmentsOnRestart() throws Exception {
+        SegmentImageStorage storage = open();
+        for (long id = 1; id <= 12; id++) {
+            storage.save(id, png(500, (int) id));
+        }
+        storage.replace(3L, png(300, 33));
+        storage.delete(5L);
+        storage.close();
+
+        SegmentImageStorage reopened = open();
+        assertEquals(11, reopened.liveCount());
+        assertArrayEquals(png(300, 33), reopened.find(3L).orElseThrow());
+        assertArrayEquals(png(500, 12), reopened.find(12L).orElseThrow());
+        assertTrue(reopened.find(5L).isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    void tornTailIsTruncatedAndAppendsContinue() throws Exception {
+        SegmentImageStorage storage = open();
+        storage.save(1L, png(400, 1));
+        storage.save(2L, png(400, 2));
+        storage.close();
+
+        // Портим данные второй записи, как будто процесс упал посреди записи
+        Path segment = directory.resolve("00000001.seg");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(2L * SegmentImageStorage.HEADER_SIZE + 400 + 10);
+            file.write(new byte[]{42, 42, 42});
+        }
+
+        SegmentImageStorage recovered = open();
+        assertArrayEquals(png(400, 1), recovered.find(1L).orElseThrow());
+        assertTrue(recovered.find(2L).isEmpty());
+        recovered.save(3L, png(400, 3));
+        recovered.close();
+
+        SegmentImageStorage again = open();
+        assertArrayEquals(png(400, 3), again.find(3L).orElseThrow());
+        assertEquals(2, again.liveCount());
+        again.close();
+    }
+
+    @Test
+    void deletedEntriesAreCompactedAway() throws Exception {
+        SegmentImageStorage storage = open();
+        // 4 записи по ~1 КБ заполняют первый сегмент, пятая открывает второй
+        for (long id = 1; id <= 5; id++) {
+            storage.save(id, png(1000, (int) id));
+        }
+        assertEquals(2, storage.segmentCount());
+
+        storage.delete(1L);
+        storage.delete(2L);
+        storage.delete(3L);
+
+        assertFalse(Files.exists(directory.resolve("00000001.seg")));
+        assertArrayEquals(png(1000, 4), storage.find(4L).orElseThrow());
+        storage.close();
+
+        SegmentImageStorage reopened = open();
+        assertEquals(2, reopened.liveCount());
+        assertTrue(reopened.find(1L).isEmpty());
+        assertArrayEquals(png(1000, 4), reopened.find(4L).orElseThrow());
+        assertArrayEquals(png(1000, 5), reopened.find(5L).orElseThrow());
+        reopened.close();
+    }
+
+    @Test
+    void rolledBackReplaceAndDeleteKeepPreviousImage() throws Exception {
+        SegmentImageStorage storage = open();
+        storage.save(1L, png(500, 1));
+        storage.save(2L, png(500, 2));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            storage.replace(1L, png(300, 11));
+            storage.delete(2L);
+            // До коммита удаление не видно, замена — видна
+            assertArrayEquals(png(300, 11), storage.find(1L).orElseThrow());
+            assertArrayEquals(png(500, 2), storage.find(2L).orElseThrow());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertArrayEquals(png(500, 1), storage.find(1L).orElseThrow());
+        assertArrayEquals(png(500, 2), storage.find(2L).orElseThrow());
+        storage.close();
+
+        SegmentImageStorage reopened = open();
+        assertArrayEquals(png(500, 1), reopened.find(1L).orElseThrow());
+        assertArrayEquals(png(500, 2), reopened.find(2L).orElseThrow());
+        reopened.close();
+    }
+
+    private static final class DirectExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}